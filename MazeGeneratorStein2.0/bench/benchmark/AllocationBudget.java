@@ -0,0 +1,144 @@
+/*	Tabitha Stein 	*
+ *	Maze Generator	*/
+
+package benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import com.sun.management.ThreadMXBean;
+
+import model.Maze;
+
+/**
+ * Checks that each generating and solving algorithm allocates no more bytes per cell than
+ * its budget, to catch allocation creeping back into the hot paths. The bytes allocated by
+ * the calling thread while an algorithm runs are read from the JVM's ThreadMXBean. Each
+ * generating algorithm is run on a fresh square Maze, constructed beforehand so only the
+ * build is charged. Each solving algorithm is run again and again on one built Maze, so
+ * its search buffers and path markings are only allocated by the first solve, and a solve
+ * that reuses them should allocate next to nothing. Every algorithm is warmed up first and
+ * the least of several runs is kept, so JIT compilation does not count against it. Only
+ * the calling thread is measured, so the parallel algorithms are left out.
+ * <p>
+ * Prints the bytes per cell of each algorithm against its budget and exits with status 1
+ * if any is over, which fails {@code mvn -P bench verify}. It can also be run by hand
+ * after {@code mvn -P bench package}:
+ * <pre>
+ * java -cp target/benchmarks.jar benchmark.AllocationBudget [--size N] [--budget NAME=BYTES]...
+ * </pre>
+ * @author Tabitha Stein
+ * @version 2.0
+ */
+public class AllocationBudget {
+
+	/**The number of times each algorithm is run before it is measured.*/
+	private static final int WARMUP_RUNS = 5;
+
+	/**The number of times each algorithm is measured, keeping the least.*/
+	private static final int MEASURED_RUNS = 3;
+
+	/**The algorithms measured, by name.*/
+	private static final Map<String, Consumer<Maze>> ALGORITHMS = new LinkedHashMap<>();
+
+	/**The bytes per cell each algorithm may allocate, by name. The defaults for building
+	 * leave about a quarter of headroom over what each allocated when they were set; a
+	 * solve reusing its buffers allocates a few small objects whatever the size.*/
+	private static final Map<String, Double> BUDGETS = new LinkedHashMap<>();
+
+	/**The names of the algorithms that solve rather than build.*/
+	private static final Set<String> SOLVERS = new HashSet<>();
+
+	static {
+		algorithm("prim", false, Maze::prim, 10.0);
+		algorithm("kruskal", false, Maze::kruskal, 20.0);
+		algorithm("unionFindKruskal", false, Maze::unionFindKruskal, 16.0);
+		algorithm("depthFirstSearch", true, Maze::depthFirstSearch, 0.01);
+		algorithm("breadthFirstSearch", true, Maze::breadthFirstSearch, 0.01);
+		algorithm("aStar", true, Maze::aStar, 0.01);
+		algorithm("bidirectionalSearch", true, Maze::bidirectionalSearch, 0.01);
+	}
+
+	/**Adds an algorithm to measure. Solvers are run on a Maze already built with Prim's
+	 * algorithm and solved.*/
+	private static void algorithm(String name, boolean solver, Consumer<Maze> run, double budget) {
+		ALGORITHMS.put(name, run);
+		BUDGETS.put(name, budget);
+		if (solver) {
+			SOLVERS.add(name);
+		}
+	}
+
+	public static void main(String[] args) {
+		int size = 500;
+		for (int a = 0; a < args.length; a++) {
+			if (a + 1 == args.length) {
+				usage("Missing value for " + args[a]);
+			}
+			String value = args[++a];
+			if (args[a - 1].equals("--size")) {
+				size = Integer.parseInt(value);
+			} else if (args[a - 1].equals("--budget") && value.indexOf('=') > 0) {
+				String name = value.substring(0, value.indexOf('='));
+				if (!BUDGETS.containsKey(name)) {
+					usage("Unknown algorithm: " + name);
+				}
+				BUDGETS.put(name, Double.parseDouble(value.substring(value.indexOf('=') + 1)));
+			} else {
+				usage("Unknown option: " + args[a - 1]);
+			}
+		}
+
+		ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+		if (!threads.isThreadAllocatedMemorySupported()) {
+			System.err.println("This JVM cannot measure allocation");
+			System.exit(2);
+		}
+		threads.setThreadAllocatedMemoryEnabled(true);
+		long thread = Thread.currentThread().getId();
+		long cells = (long) size * size;
+
+		boolean over = false;
+		for (Map.Entry<String, Consumer<Maze>> algorithm : ALGORITHMS.entrySet()) {
+			Consumer<Maze> run = algorithm.getValue();
+			Maze solved = null;
+			if (SOLVERS.contains(algorithm.getKey())) {
+				solved = new Maze(size, size, 1L);
+				solved.prim();
+			}
+			for (int i = 0; i < WARMUP_RUNS; i++) {
+				run.accept(solved != null ? solved : new Maze(size, size, 1L));
+			}
+			long least = Long.MAX_VALUE;
+			for (int i = 0; i < MEASURED_RUNS; i++) {
+				Maze maze = solved != null ? solved : new Maze(size, size, 1L);
+				long before = threads.getThreadAllocatedBytes(thread);
+				run.accept(maze);
+				least = Math.min(least, threads.getThreadAllocatedBytes(thread) - before);
+			}
+			double perCell = (double) least / cells;
+			double budget = BUDGETS.get(algorithm.getKey());
+			boolean ok = perCell <= budget;
+			over |= !ok;
+			System.out.printf(Locale.ROOT, "%-20s %8.2f bytes/cell  budget %6.2f  %s%n",
+					algorithm.getKey(), perCell, budget, ok ? "ok" : "OVER BUDGET");
+		}
+		if (over) {
+			System.exit(1);
+		}
+	}
+
+	/**Prints what went wrong and how to run this class, then exits with status 2.*/
+	private static void usage(String problem) {
+		System.err.println(problem);
+		System.err.println("Usage: java benchmark.AllocationBudget [--size N] [--budget NAME=BYTES]...");
+		System.err.println("Algorithms: " + String.join(", ", BUDGETS.keySet()));
+		System.exit(2);
+	}
+
+}
@@ -0,0 +1,28 @@
+/*	Tabitha Stein 	*
+ *	Maze Generator	*/
+
+package benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with JMH's usual command line options, always adding the gc profiler
+ * so allocation rates per operation are reported alongside the timings. For example, to
+ * run only the solvers on the largest Maze:
+ * <pre>java -jar target/benchmarks.jar Solve -p size=4000</pre>
+ * @author Tabitha Stein
+ * @version 2.0
+ */
+public class BenchmarkRunner {
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		CommandLineOptions cmd = new CommandLineOptions(args);
+		new Runner(new OptionsBuilder().parent(cmd).addProfiler(GCProfiler.class).build()).run();
+	}
+
+}
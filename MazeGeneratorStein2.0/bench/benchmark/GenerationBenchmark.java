@@ -0,0 +1,126 @@
+/*	Tabitha Stein 	*
+ *	Maze Generator	*/
+
+package benchmark;
+
+import java.util.Observable;
+import java.util.Observer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import model.Maze;
+import model.MazeListener;
+
+/**
+ * Measures building a square Maze with each generating algorithm. A Maze can only be built
+ * once, so each invocation constructs a new one; construction is a small share of the cost.
+ * @author Tabitha Stein
+ * @version 2.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class GenerationBenchmark {
+
+	/**The number of rows and columns of cells in each tile of a tiled build.*/
+	static final int TILE = 256;
+
+	/**The number of rows and columns of the Maze.*/
+	@Param({"10", "100", "1000", "4000"})
+	public int size;
+
+	/**The generating algorithm: prim, kruskal, unionFindKruskal, parallelBoruvka, or tiled
+	 * Prim's algorithm. How the parallel ones scale with cores is measured by
+	 * {@link ScalingBenchmark}.*/
+	@Param({"prim", "kruskal", "unionFindKruskal", "parallelBoruvka", "tiled"})
+	public String algorithm;
+
+	/**What is attached to the Maze while it is built: none, an Observer or a MazeListener.
+	 * Both only count what they are told, so the cost measured is that of notifying them.*/
+	@Param({"none", "observer", "listener"})
+	public String observers;
+
+	@Benchmark
+	public Maze generate(Blackhole bh) {
+		Maze maze = new Maze(size, size);
+		Observers.attach(maze, observers, bh);
+		build(maze, algorithm);
+		return maze;
+	}
+
+	/**Builds the given Maze with the named algorithm.*/
+	static void build(Maze maze, String algorithm) {
+		switch (algorithm) {
+			case "prim"				:	maze.prim();
+										break;
+			case "kruskal"			:	maze.kruskal();
+										break;
+			case "parallelBoruvka"	:	maze.parallelBoruvka();
+										break;
+			case "tiled"			:	maze.tiled(Maze.Algorithm.PRIM, TILE, TILE);
+										break;
+			default					:	maze.unionFindKruskal();
+										break;
+		}
+	}
+
+	/**
+	 * The observers that can be attached to a Maze being benchmarked.
+	 */
+	static final class Observers {
+
+		private Observers() {
+		}
+
+		/**
+		 * Attaches the named kind of observer to the given Maze, sinking whatever it
+		 * is told into the Blackhole.
+		 */
+		static void attach(Maze maze, String kind, final Blackhole bh) {
+			if ("observer".equals(kind)) {
+				maze.addObserver(new Observer() {
+					@Override
+					public void update(Observable o, Object arg) {
+						bh.consume(o);
+					}
+				});
+			} else if ("listener".equals(kind)) {
+				maze.addMazeListener(new MazeListener() {
+					@Override
+					public void wallRemoved(int cellA, int cellB) {
+						bh.consume(cellA);
+					}
+
+					@Override
+					public void cellMarked(int cell, char marker) {
+						bh.consume(cell);
+					}
+
+					@Override
+					public void buildFinished() {
+					}
+
+					@Override
+					public void pathCleared() {
+					}
+				});
+			}
+		}
+
+	}
+
+}
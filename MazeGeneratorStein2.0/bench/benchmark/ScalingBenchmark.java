@@ -0,0 +1,91 @@
+/*	Tabitha Stein 	*
+ *	Maze Generator	*/
+
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.Maze;
+
+/**
+ * Measures how building a large square Maze with the parallel generating algorithms
+ * scales with the number of cores. The common ForkJoinPool they run on is sized when its
+ * JVM starts, so each benchmark forks a JVM with a different parallelism; comparing the
+ * benchmarks for one algorithm and size shows the speedup over a single core.
+ * <pre>java -jar target/benchmarks.jar Scaling -p size=4000</pre>
+ * @author Tabitha Stein
+ * @version 2.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ScalingBenchmark {
+
+	/**The system property sizing the common ForkJoinPool.*/
+	private static final String PARALLELISM = "-Djava.util.concurrent.ForkJoinPool.common.parallelism=";
+
+	/**The number of rows and columns of the Maze.*/
+	@Param({"1000", "4000"})
+	public int size;
+
+	/**The generating algorithm: parallelBoruvka, or tiled Prim's algorithm.*/
+	@Param({"parallelBoruvka", "tiled"})
+	public String algorithm;
+
+	@Benchmark
+	@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", PARALLELISM + 1})
+	public Maze parallelism1() {
+		return generate();
+	}
+
+	@Benchmark
+	@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", PARALLELISM + 2})
+	public Maze parallelism2() {
+		return generate();
+	}
+
+	@Benchmark
+	@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", PARALLELISM + 4})
+	public Maze parallelism4() {
+		return generate();
+	}
+
+	@Benchmark
+	@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", PARALLELISM + 8})
+	public Maze parallelism8() {
+		return generate();
+	}
+
+	@Benchmark
+	@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", PARALLELISM + 16})
+	public Maze parallelism16() {
+		return generate();
+	}
+
+	@Benchmark
+	@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", PARALLELISM + 32})
+	public Maze parallelism32() {
+		return generate();
+	}
+
+	/**Builds a new Maze with the chosen algorithm.*/
+	private Maze generate() {
+		Maze maze = new Maze(size, size);
+		GenerationBenchmark.build(maze, algorithm);
+		return maze;
+	}
+
+}
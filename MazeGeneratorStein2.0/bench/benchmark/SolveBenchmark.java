@@ -0,0 +1,78 @@
+/*	Tabitha Stein 	*
+ *	Maze Generator	*/
+
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import model.Maze;
+
+/**
+ * Measures solving a square Maze, built once per trial with Prim's algorithm, with each
+ * solving algorithm. Solving can be repeated on the same Maze, so only the solve is timed.
+ * @author Tabitha Stein
+ * @version 2.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class SolveBenchmark {
+
+	/**The number of rows and columns of the Maze.*/
+	@Param({"10", "100", "1000", "4000"})
+	public int size;
+
+	/**The solving algorithm: depthFirstSearch, breadthFirstSearch, aStar,
+	 * bidirectionalSearch or fillDeadEnds.*/
+	@Param({"depthFirstSearch", "breadthFirstSearch", "aStar", "bidirectionalSearch", "fillDeadEnds"})
+	public String algorithm;
+
+	/**What is attached to the Maze while it is solved; see GenerationBenchmark.*/
+	@Param({"none", "observer", "listener"})
+	public String observers;
+
+	/**The Maze being solved.*/
+	private Maze maze;
+
+	@Setup(Level.Trial)
+	public void build(Blackhole bh) {
+		maze = new Maze(size, size);
+		maze.prim();
+		GenerationBenchmark.Observers.attach(maze, observers, bh);
+	}
+
+	@Benchmark
+	public Object solve() {
+		if ("fillDeadEnds".equals(algorithm)) {
+			return maze.fillDeadEnds();
+		}
+		if ("depthFirstSearch".equals(algorithm)) {
+			maze.depthFirstSearch();
+		} else if ("aStar".equals(algorithm)) {
+			maze.aStar();
+		} else if ("bidirectionalSearch".equals(algorithm)) {
+			maze.bidirectionalSearch();
+		} else {
+			maze.breadthFirstSearch();
+		}
+		return maze;
+	}
+
+}
@@ -0,0 +1,124 @@
+/*	Tabitha Stein 	*
+ *	Maze Generator	*/
+
+package model;
+
+/**
+ * The cells of a maze and the passages between them, however they are stored. Cells are
+ * numbered from the top left to the bottom right, and each may be open to its east and
+ * south neighbors; the lattice adjacency is derived arithmetically from the indices. The
+ * solving algorithms only need this much, so they can run against a grid in memory or a
+ * maze file mapped from disk alike.
+ *
+ * @author Tabitha Stein
+ * @version 2.0
+ */
+public interface CellGraph {
+
+	/**Returns the number of rows of cells.*/
+	int rows();
+
+	/**Returns the number of columns of cells.*/
+	int columns();
+
+	/**Returns the index of the entrance cell, or -1 if there are no cells.*/
+	int getStart();
+
+	/**Returns the index of the exit cell, or -1 if there are no cells.*/
+	int getExit();
+
+	/**Returns the character marking the entrance.*/
+	char getEntranceMarker();
+
+	/**Returns the character marking the exit.*/
+	char getExitMarker();
+
+	/**Returns true if the wall on the east side of cell i has been knocked down.*/
+	boolean isOpenEast(int i);
+
+	/**Returns true if the wall on the south side of cell i has been knocked down.*/
+	boolean isOpenSouth(int i);
+
+	/**Returns the number of cells.*/
+	default int size() {
+		return rows() * columns();
+	}
+
+	/**Returns true if the adjacent cells a and b share a path.*/
+	default boolean hasPassage(int a, int b) {
+		int first = Math.min(a, b);
+		return Math.abs(a - b) == columns() ? isOpenSouth(first) : isOpenEast(first);
+	}
+
+	/**
+	 * Writes the indices of the cells above, below, right and left of cell i, for each that
+	 * exists, into the given array and returns how many were written.
+	 * @param i the cell
+	 * @param out an array of at least four elements
+	 * @return the number of neighbors written
+	 */
+	default int neighbors(int i, int[] out) {
+		int columns = columns();
+		int count = 0;
+		if (i >= columns) { out[count++] = i - columns; }						//above
+		if (i + columns < size()) { out[count++] = i + columns; }				//below
+		if ((i + 1) % columns != 0) { out[count++] = i + 1; }					//right, unless in last column
+		if (i % columns != 0) { out[count++] = i - 1; }							//left, unless in first column
+		return count;
+	}
+
+	/**
+	 * Writes the indices of the cells sharing a path with cell i into the given array, in
+	 * the same order as {@link #neighbors(int, int[])}, and returns how many were written.
+	 * @param i the cell
+	 * @param out an array of at least four elements
+	 * @return the number of path neighbors written
+	 */
+	default int pathNeighbors(int i, int[] out) {
+		int columns = columns();
+		int count = 0;
+		if (i >= columns && isOpenSouth(i - columns)) { out[count++] = i - columns; }
+		if (isOpenSouth(i)) { out[count++] = i + columns; }
+		if (isOpenEast(i)) { out[count++] = i + 1; }
+		if (i % columns != 0 && isOpenEast(i - 1)) { out[count++] = i - 1; }
+		return count;
+	}
+
+	/**Returns true if cell i is marked as visited by a generation algorithm; cells that
+	 * keep no such markings are never visited.*/
+	default boolean isVisited(int i) {
+		return false;
+	}
+
+	/**Returns the path marking of cell i, or 0 if it has none; cells that keep no path
+	 * markings never have one.*/
+	default char getPathMark(int i) {
+		return 0;
+	}
+
+	/**
+	 * Renders one line of the display of these cells into the given array: a line of wall
+	 * characters above, between and below each row of cells, and a line through each row,
+	 * with visited cells marked {@value Maze#VISITED}, knocked down walls as spaces and the
+	 * doorways as their markers. Rendering a line at a time lets a maze of any size be
+	 * written out without holding the whole display.
+	 * @param line the line, from 0 to twice the number of rows
+	 * @param out an array of at least twice the number of columns plus one elements
+	 */
+	default void renderRow(int line, char[] out) {
+		CellRenderer.renderRow(this, line, out);
+	}
+
+	/**
+	 * Returns the character at one line and column of the display rendered by
+	 * {@link #renderRow(int, char[])}, so a window onto the display of a large maze can be
+	 * drawn without rendering whole lines.
+	 * @param line the line, from 0 to twice the number of rows
+	 * @param column the column, from 0 to twice the number of columns
+	 * @return the character at that position
+	 */
+	default char renderPosition(int line, int column) {
+		return CellRenderer.renderPosition(this, line, column);
+	}
+
+}
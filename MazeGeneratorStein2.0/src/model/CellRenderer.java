@@ -0,0 +1,102 @@
+/*	Tabitha Stein 	*
+ *	Maze Generator	*/
+
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Renders the cells of a CellGraph as lines of characters, for
+ * {@link CellGraph#renderRow(int, char[])}.
+ *
+ * @author Tabitha Stein
+ * @version 2.0
+ */
+final class CellRenderer {
+
+	private CellRenderer() {
+	}
+
+	/**Renders the given line of the cells' display into out, as described by
+	 * {@link CellGraph#renderRow(int, char[])}.*/
+	static void renderRow(CellGraph cells, int line, char[] out) {
+		int rows = cells.rows();
+		int columns = cells.columns();
+		Arrays.fill(out, 0, (columns * 2) + 1, Maze.WALL);
+		if (line > 0 && line < rows * 2) {
+			int first = ((line - 1) / 2) * columns;
+			for (int i = first; i < first + columns; i++) {
+				int column = (i - first) * 2 + 1;
+				if ((line & 1) == 1) {											//line through the cells
+					out[column] = cells.isVisited(i) ? Maze.VISITED : ' ';
+					if (cells.isOpenEast(i)) { out[column + 1] = ' '; }
+				} else if (cells.isOpenSouth(i)) {								//line between rows
+					out[column] = ' ';
+				}
+			}
+		}
+		if (cells.getStart() >= 0) {
+			clearDoorway(line, out, doorwayPosition(cells, cells.getStart()), cells.getEntranceMarker());
+			clearDoorway(line, out, doorwayPosition(cells, cells.getExit()), cells.getExitMarker());
+		}
+	}
+
+	/**Returns the character at the given line and column of the cells' display, as
+	 * described by {@link CellGraph#renderPosition(int, int)}.*/
+	static char renderPosition(CellGraph cells, int line, int column) {
+		int rows = cells.rows();
+		int columns = cells.columns();
+		if (cells.getStart() >= 0) {
+			long position = ((long) line << 32) | column;
+			if (doorwayPosition(cells, cells.getExit()) == position) {			//the exit is drawn last
+				return cells.getExitMarker();
+			}
+			if (doorwayPosition(cells, cells.getStart()) == position) {
+				return cells.getEntranceMarker();
+			}
+		}
+		if ((line & 1) == 1 && (column & 1) == 1) {							//a cell
+			return cells.isVisited((line / 2) * columns + column / 2) ? Maze.VISITED : ' ';
+		}
+		if ((line & 1) == 1) {													//a wall between columns
+			if (column == 0 || column == columns * 2) {
+				return Maze.WALL;
+			}
+			return cells.isOpenEast((line / 2) * columns + column / 2 - 1) ? ' ' : Maze.WALL;
+		}
+		if ((column & 1) == 1) {												//a wall between rows
+			if (line == 0 || line == rows * 2) {
+				return Maze.WALL;
+			}
+			return cells.isOpenSouth((line / 2 - 1) * columns + column / 2) ? ' ' : Maze.WALL;
+		}
+		return Maze.WALL;														//a corner
+	}
+
+	/**Returns the line of the display in the high half and the column in the low half of
+	 * the position "behind" the given door cell, or -1 if the cell is not on the border.*/
+	private static long doorwayPosition(CellGraph cells, int door) {
+		int columns = cells.columns();
+		int row = (door / columns) * 2 + 1;
+		int column = (door % columns) * 2 + 1;
+		if (row == 1) { //at top
+			return ((long) (row - 1) << 32) | column;
+		} else if (row == cells.rows() * 2 - 1) { //at bottom
+			return ((long) (row + 1) << 32) | column;
+		} else if (column == 1) { //left side
+			return ((long) row << 32) | (column - 1);
+		} else if (column == columns * 2 - 1) { //right side
+			return ((long) row << 32) | (column + 1);
+		}
+		return -1L;
+	}
+
+	/**Replaces the character at the given doorway position with the given character, iff
+	 * that position is on the given line.*/
+	private static void clearDoorway(int line, char[] out, long position, char marker) {
+		if (position >= 0 && (int) (position >>> 32) == line) {
+			out[(int) position] = marker;
+		}
+	}
+
+}
@@ -0,0 +1,278 @@
+/*	Tabitha Stein 	*
+ *	Maze Generator	*/
+
+package model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntToLongFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Solves a maze by dead-end filling: every cell other than the entrance and exit with at
+ * most one open neighbor still unfilled is a dead end, and is filled, until no dead ends
+ * are left. In a perfect maze only the path from the entrance to the exit remains; in a
+ * maze with loops, the loops remain as well. No search is made and no steps are reported,
+ * so this suits checking the solutions of many mazes rather than showing one solved.
+ * <p>
+ * The walls and unfilled cells are held as bitboards, one row of cells to an array of
+ * longs, so each word operation finds the dead ends among 64 cells at once from the rows
+ * above and below and the words either side. Rows are grouped into bands, which are swept
+ * down and back up so that a filled corridor runs on through the band in one sweep. The
+ * even bands are swept together on the common ForkJoinPool, then the odd ones, so that
+ * neither the bands being swept nor the rows they read across their edges are written by
+ * another thread at the same time, until a round fills nothing.
+ *
+ * @author Tabitha Stein
+ * @version 2.0
+ */
+final class DeadEndFiller {
+
+	/**The fewest rows in a band, so each task has enough work to be worth its scheduling.*/
+	private static final int MIN_BAND_ROWS = 16;
+
+	/**The number of rows of cells.*/
+	private final int rows;
+
+	/**The number of columns of cells.*/
+	private final int columns;
+
+	/**The number of longs in each row.*/
+	private final int words;
+
+	/**Bit c of east[r] is set when the cell in row r and column c is open to the east.*/
+	private final long[][] east;
+
+	/**Bit c of south[r] is set when the cell in row r and column c is open to the south.*/
+	private final long[][] south;
+
+	/**Bit c of open[r] is set while the cell in row r and column c has not been filled.*/
+	private final long[][] open;
+
+	/**The rows and columns of the entrance and exit, which are never filled.*/
+	private final int startRow;
+	private final int startColumn;
+	private final int exitRow;
+	private final int exitColumn;
+
+	/**Bit w of dirty[r] is set when word w of row r may have dead ends, because cells
+	 * touching it have been filled since it was last looked at. Rows at the edge of a band
+	 * are marked by the neighboring band, which is never swept at the same time.*/
+	private final long[][] dirty;
+
+	/**Set for each row with any dirty words.*/
+	private final boolean[] dirtyRow;
+
+	/**The number of rows in each band.*/
+	private final int bandRows;
+
+	/**The number of bands.*/
+	private final int bands;
+
+	private DeadEndFiller(CellGraph graph) {
+		rows = graph.rows();
+		columns = graph.columns();
+		words = (columns + 63) >>> 6;
+		east = new long[rows][words];
+		south = new long[rows][words];
+		open = new long[rows][words];
+		dirty = new long[rows][(words + 63) >>> 6];
+		dirtyRow = new boolean[rows];
+		Arrays.fill(dirtyRow, true);
+		startRow = graph.getStart() / columns;
+		startColumn = graph.getStart() % columns;
+		exitRow = graph.getExit() / columns;
+		exitColumn = graph.getExit() % columns;
+		int parallelism = ForkJoinPool.getCommonPoolParallelism();
+		bandRows = Math.max(MIN_BAND_ROWS, (rows + 4 * parallelism - 1) / (4 * parallelism));
+		bands = (rows + bandRows - 1) / bandRows;
+
+		IntToLongFunction wordSource = passageWords(graph);
+		long lastWord = (columns & 63) == 0 ? -1L : (1L << columns) - 1;			//Columns in the last word
+		IntStream.range(0, rows).parallel().forEach(r -> {
+			if (wordSource != null) {
+				unpackRow(r, wordSource);
+			} else {
+				for (int c = 0, i = r * columns; c < columns; c++, i++) {
+					if (graph.isOpenEast(i)) { east[r][c >>> 6] |= 1L << c; }
+					if (graph.isOpenSouth(i)) { south[r][c >>> 6] |= 1L << c; }
+				}
+			}
+			Arrays.fill(open[r], -1L);
+			open[r][words - 1] = lastWord;
+			for (int w = 0; w < words; w++) {
+				dirty[r][w >>> 6] |= 1L << w;
+			}
+		});
+	}
+
+	/**Returns a way to read the passage bits of the given cells a word at a time, as laid
+	 * out by MazeGrid, or null if they can only be read a cell at a time.*/
+	private static IntToLongFunction passageWords(CellGraph graph) {
+		if (graph instanceof MazeGrid) {
+			return ((MazeGrid) graph)::getPassageWord;
+		}
+		if (graph instanceof MazeFile) {
+			return ((MazeFile) graph)::getPassageWord;
+		}
+		return null;
+	}
+
+	/**Copies the passages of row r into the bitboards from the two bits per cell layout of
+	 * a MazeGrid, 32 cells at a time.*/
+	private void unpackRow(int r, IntToLongFunction passageWords) {
+		long first = (long) r * columns;
+		for (int c = 0; c < columns; c += 32) {
+			long bit = (first + c) << 1;											//Of the east passage of cell c
+			int word = (int) (bit >>> 6);
+			int offset = (int) (bit & 63);
+			int count = Math.min(32, columns - c);
+			long bits = passageWords.applyAsLong(word) >>> offset;
+			if (bit + 2 * count > (long) (word + 1) << 6) {							//Spills into the next word
+				bits |= passageWords.applyAsLong(word + 1) << (64 - offset);
+			}
+			long mask = (1L << count) - 1;
+			east[r][c >>> 6] |= (evenBits(bits) & mask) << (c & 63);
+			south[r][c >>> 6] |= (evenBits(bits >>> 1) & mask) << (c & 63);
+		}
+	}
+
+	/**Returns the even bits of the given long packed into its low 32 bits.*/
+	private static long evenBits(long x) {
+		x &= 0x5555555555555555L;
+		x = (x | (x >>> 1)) & 0x3333333333333333L;
+		x = (x | (x >>> 2)) & 0x0F0F0F0F0F0F0F0FL;
+		x = (x | (x >>> 4)) & 0x00FF00FF00FF00FFL;
+		x = (x | (x >>> 8)) & 0x0000FFFF0000FFFFL;
+		return (x | (x >>> 16)) & 0x00000000FFFFFFFFL;
+	}
+
+	/**
+	 * Fills the dead ends of the given maze and returns the cells left unfilled.
+	 * @param graph the cells of the maze
+	 * @return the indices of the cells left: the path from the entrance to the exit of a
+	 *         perfect maze, or no cells if the maze has none
+	 */
+	static BitSet fill(CellGraph graph) {
+		if (graph.size() == 0) {
+			return new BitSet();
+		}
+		DeadEndFiller filler = new DeadEndFiller(graph);
+		filler.run();
+		return filler.remaining();
+	}
+
+	/**Sweeps the even bands, then the odd bands, until a round fills nothing.*/
+	private void run() {
+		boolean filled = true;
+		while (filled) {
+			filled = sweepBands(0);
+			filled |= sweepBands(1);
+		}
+	}
+
+	/**Sweeps every other band, starting with the given one, in parallel, returning true
+	 * if any cell was filled.*/
+	private boolean sweepBands(int first) {
+		return IntStream.range(0, (bands - first + 1) / 2).parallel()
+				.map(b -> sweepBand(2 * b + first) ? 1 : 0)
+				.sum() > 0;
+	}
+
+	/**Sweeps the rows of a band down, then back up, returning true if any cell was
+	 * filled.*/
+	private boolean sweepBand(int band) {
+		int top = band * bandRows;
+		int bottom = Math.min(rows, top + bandRows);
+		boolean filled = false;
+		for (int r = top; r < bottom; r++) {
+			filled |= fillRow(r);
+		}
+		for (int r = bottom - 2; r >= top; r--) {								//The bottom row was just filled
+			filled |= fillRow(r);
+		}
+		return filled;
+	}
+
+	/**Fills the dead ends of a row until it has none, given the rows either side, and
+	 * returns true if any cell was filled. Only the dirty words are looked at, and filling
+	 * cells dirties the words they touch: the same word, the word either side when an end
+	 * bit was filled, and the same word of the rows either side.*/
+	private boolean fillRow(int r) {
+		if (!dirtyRow[r]) {
+			return false;
+		}
+		dirtyRow[r] = false;
+		long[] marks = dirty[r];
+		boolean filled = false;
+		boolean pending = true;
+		while (pending) {															//Corridors along a word take a pass a cell
+			pending = false;
+			for (int m = 0; m < marks.length; m++) {
+				long bits = marks[m];
+				marks[m] = 0;
+				for (; bits != 0; bits &= bits - 1) {
+					int w = (m << 6) + Long.numberOfTrailingZeros(bits);
+					long deadEnds = deadEnds(r, w);
+					if (deadEnds != 0) {
+						open[r][w] &= ~deadEnds;
+						filled = true;
+						pending = true;
+						marks[m] |= 1L << w;
+						if ((deadEnds & 1) != 0 && w > 0) { marks[(w - 1) >>> 6] |= 1L << (w - 1); }
+						if (deadEnds < 0 && w + 1 < words) { marks[(w + 1) >>> 6] |= 1L << (w + 1); }
+						if (r > 0) { markDirty(r - 1, w); }
+						if (r + 1 < rows) { markDirty(r + 1, w); }
+					}
+				}
+			}
+		}
+		return filled;
+	}
+
+	/**Marks word w of row r as needing to be looked at again.*/
+	private void markDirty(int r, int w) {
+		dirty[r][w >>> 6] |= 1L << w;
+		dirtyRow[r] = true;
+	}
+
+	/**Returns the unfilled cells of word w of row r with at most one open, unfilled
+	 * neighbor, other than the entrance and exit.*/
+	private long deadEnds(int r, int w) {
+		long[] here = open[r];
+		long cells = here[w];
+		if (cells == 0) {
+			return 0;
+		}
+		long[] eastRow = east[r];
+		long toEast = eastRow[w] & ((cells >>> 1) | (w + 1 < words ? here[w + 1] << 63 : 0));
+		long toWest = ((eastRow[w] & cells) << 1) | (w > 0 ? (eastRow[w - 1] & here[w - 1]) >>> 63 : 0);
+		long toNorth = r > 0 ? south[r - 1][w] & open[r - 1][w] : 0;
+		long toSouth = r + 1 < rows ? south[r][w] & open[r + 1][w] : 0;
+		long twoOrMore = (toNorth & (toSouth | toEast | toWest)) | (toSouth & (toEast | toWest)) | (toEast & toWest);
+		return cells & ~twoOrMore & ~kept(r, w);
+	}
+
+	/**Returns the bits of word w of row r for the entrance and exit, which are kept.*/
+	private long kept(int r, int w) {
+		long kept = 0;
+		if (startRow == r && startColumn >>> 6 == w) { kept |= 1L << startColumn; }
+		if (exitRow == r && exitColumn >>> 6 == w) { kept |= 1L << exitColumn; }
+		return kept;
+	}
+
+	/**Returns the indices of the cells not filled.*/
+	private BitSet remaining() {
+		BitSet cells = new BitSet(rows * columns);
+		for (int r = 0; r < rows; r++) {
+			for (int w = 0; w < words; w++) {
+				for (long bits = open[r][w]; bits != 0; bits &= bits - 1) {
+					cells.set(r * columns + (w << 6) + Long.numberOfTrailingZeros(bits));
+				}
+			}
+		}
+		return cells;
+	}
+
+}
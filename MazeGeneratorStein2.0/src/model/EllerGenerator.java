@@ -0,0 +1,192 @@
+/*	Tabitha Stein 	*
+ *	Maze Generator	*/
+
+package model;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Generates a perfect maze a row at a time with Eller's algorithm and streams it out as it
+ * goes, in the same lines of {@value Maze#WALL} and space characters as
+ * {@link Maze#write(Writer)}. Only the sets of the cells in the current row are kept, so the
+ * memory used depends on the number of columns alone and a maze may be as tall as wanted.
+ * The entrance is at the top left and the exit at the bottom right, as in a Maze built
+ * with the default constructor.
+ *
+ * @author Tabitha Stein
+ * @version 2.0
+ */
+public final class EllerGenerator {
+
+	/**The number of rows of cells.*/
+	private final long numRows;
+
+	/**The number of columns of cells.*/
+	private final int numColumns;
+
+	/**The character to mark the entrance to the maze.*/
+	private final char entranceMarker;
+
+	/**The character to mark the exit to the maze.*/
+	private final char exitMarker;
+
+	/**The seed the random choices are drawn from.*/
+	private final long seed;
+
+	/**
+	 * Creates a generator for mazes of the given dimensions with unmarked doorways.
+	 * @param m the number of rows
+	 * @param n the number of columns
+	 * @param seed the seed the random choices are drawn from
+	 */
+	public EllerGenerator(long m, int n, long seed) {
+		this(m, n, ' ', ' ', seed);
+	}
+
+	/**
+	 * Creates a generator for mazes of the given dimensions.
+	 * @param m the number of rows
+	 * @param n the number of columns
+	 * @param entMark the character for displaying the entrance
+	 * @param exMark the character for displaying the exit
+	 * @param seed the seed the random choices are drawn from
+	 */
+	public EllerGenerator(long m, int n, char entMark, char exMark, long seed) {
+		numRows = Math.abs(m); //Protects against negative dimensions
+		numColumns = Math.abs(n);
+		entranceMarker = entMark;
+		exitMarker = exMark;
+		this.seed = seed;
+	}
+
+	/**
+	 * Generates the maze, writing each line as soon as it is finished. Lines are written
+	 * whole, but the writer should still be buffered.
+	 * @param out the writer to write the lines to
+	 * @throws IOException if the writer fails
+	 */
+	public void generate(Writer out) throws IOException {
+		int width = (numColumns * 2) + 1;
+		char[] line = new char[width + 1];											//the line through a row of cells
+		char[] below = new char[width + 1];											//the line under it
+		line[width] = below[width] = '\n';
+		Arrays.fill(line, 0, width, Maze.WALL);
+		if (numRows == 0 || numColumns == 0) { //Same as an empty Maze, with no doorways
+			for (long l = 0; l <= numRows * 2; l++) {
+				out.write(line);
+			}
+			return;
+		}
+		line[1] = entranceMarker;
+		if (numRows == 1) { line[width - 2] = exitMarker; }							//exit on the top border too
+		out.write(line);
+
+		RandomBits randy = new RandomBits(new SplittableRandom(seed));
+		int[] set = new int[numColumns];											//the set of each cell in the row
+		int[] parent = new int[numColumns];											//union-find over this row's sets
+		int[] remaining = new int[numColumns];										//cells of each set not yet given a way down
+		int[] next = new int[numColumns];											//each set's label in the next row
+		for (int c = 0; c < numColumns; c++) {
+			set[c] = c;
+		}
+		for (long r = 0; r < numRows; r++) {
+			boolean last = r == numRows - 1;
+			for (int s = 0; s < numColumns; s++) {
+				parent[s] = s;
+			}
+			Arrays.fill(line, 0, width, Maze.WALL);
+			for (int c = 0; c < numColumns; c++) {
+				line[c * 2 + 1] = ' ';
+				if (c + 1 < numColumns) {
+					int a = find(parent, set[c]);
+					int b = find(parent, set[c + 1]);
+					if (a != b && (last || randy.nextBoolean())) {					//the last row joins every set
+						parent[b] = a;
+						line[c * 2 + 2] = ' ';
+					}
+				}
+			}
+			out.write(line);
+			if (last) {
+				break;
+			}
+
+			Arrays.fill(remaining, 0);
+			Arrays.fill(next, -1);
+			for (int c = 0; c < numColumns; c++) {
+				set[c] = find(parent, set[c]);
+				remaining[set[c]]++;
+			}
+			Arrays.fill(below, 0, width, Maze.WALL);
+			int labels = 0;
+			for (int c = 0; c < numColumns; c++) {
+				int s = set[c];
+				remaining[s]--;
+				//Every set needs at least one way down, or it would be cut off
+				if (randy.nextBoolean() || (remaining[s] == 0 && next[s] < 0)) {
+					if (next[s] < 0) {
+						next[s] = labels++;
+					}
+					set[c] = next[s];
+					below[c * 2 + 1] = ' ';
+				} else {
+					set[c] = -1;
+				}
+			}
+			for (int c = 0; c < numColumns; c++) {
+				if (set[c] < 0) {													//a new set of its own
+					set[c] = labels++;
+				}
+			}
+			out.write(below);
+		}
+
+		Arrays.fill(line, 0, width, Maze.WALL);
+		if (numRows > 1) { line[width - 2] = exitMarker; }
+		out.write(line);
+	}
+
+	/**Returns the root of the set containing s, halving the path to it along the way.*/
+	private static int find(int[] parent, int s) {
+		while (parent[s] != s) {
+			parent[s] = parent[parent[s]];
+			s = parent[s];
+		}
+		return s;
+	}
+
+	/**Hands out the bits of a random number generator's longs one at a time, since Eller's
+	 * algorithm makes two coin flips per cell.*/
+	private static final class RandomBits {
+
+		/**The generator the bits are drawn from.*/
+		private final SplittableRandom source;
+
+		/**The bits not yet handed out.*/
+		private long bits;
+
+		/**The number of bits not yet handed out.*/
+		private int left;
+
+		RandomBits(SplittableRandom theSource) {
+			source = theSource;
+		}
+
+		/**Returns the next random bit as a boolean.*/
+		boolean nextBoolean() {
+			if (left == 0) {
+				bits = source.nextLong();
+				left = 64;
+			}
+			left--;
+			boolean bit = (bits & 1L) != 0;
+			bits >>>= 1;
+			return bit;
+		}
+
+	}
+
+}
@@ -1,174 +1,307 @@
-/*	Model Tests; Exclude from build path when bulding with GUI.	*/
+/*	Tabitha Stein 	*
+ *	Maze Generator	*/
 
 package model;
 
-
-import java.util.Observable;
-import java.util.Observer;
-import java.util.Random;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
- * A controller for the Maze class. Note that the Maze does not automatically solve itself
- * upon construction; one must call the dfs() (depth first search) method to solve it.
- * I did this so I could time generation and solving separately.
+ * Generates mazes in bulk without the GUI. Each maze is built, optionally solved and
+ * optionally written to its own file on a fixed pool of threads, and the throughput and
+ * per-maze latency are reported once all are done. With --metrics, the time taken to
+ * generate each maze and the mean of its {@link MazeMetrics} are reported as well, for
+ * comparing the speed of the algorithms with the texture of the mazes they make; the
+ * mazes are analyzed after their latency is taken, so it is not counted in it. Every
+ * maze gets its own seed, drawn in order from the base seed, so a batch is reproducible
+ * whatever the number of threads.
+ * <pre>
+ * java model.Main [--count N] [--rows M] [--columns N] [--algorithm NAME] [--seed S]
+ *                 [--entrance E] [--exit X] [--solve SOLVER]
+ *                 [--out DIR] [--format text|binary] [--threads T] [--metrics]
+ * </pre>
  * @author Tabitha Stein
- * @version 1.0
+ * @version 2.0
  */
 public class Main {
 
-	/**Runs the method for the assignment and some tests.*/
-	public static void main(String[] args) {
-		assignment();
-		
-		/*Tests*/
-		//timedTest(100, 100);				
-		//paramExceptionsTest();
-		//randomStartAndExitTest();
-		//startAndExitTest();
-		//oddSizesTest();
+	/**How to run this class.*/
+	private static final String USAGE = "Usage: java model.Main [options]\n"
+			+ "  --count N            number of mazes to generate (default 1)\n"
+			+ "  --rows M             rows of cells in each maze (default 10)\n"
+			+ "  --columns N          columns of cells in each maze (default 10)\n"
+			+ "  --algorithm NAME     " + names(Maze.Algorithm.values()) + " (default prim)\n"
+			+ "  --seed S             base seed for the batch (default random)\n"
+			+ "  --entrance E         entrance location clockwise from the top left (default 0)\n"
+			+ "  --exit X             exit location clockwise from the bottom right (default 0)\n"
+			+ "  --solve SOLVER       solve each maze after building it with\n"
+			+ "                       " + names(Maze.Solver.values()) + "\n"
+			+ "  --out DIR            write each maze to a file in DIR\n"
+			+ "  --format text|binary file format for --out (default text)\n"
+			+ "  --threads T          number of worker threads (default one per processor)\n"
+			+ "  --metrics            report generation times and the texture of the mazes";
+
+	/**The character set text files are written in; the same as the sources, so
+	 * {@link Maze#PATH} is written as one byte.*/
+	private static final Charset TEXT_CHARSET = Charset.forName("windows-1252");
+
+	/**The number of mazes to build.*/
+	private int count = 1;
+
+	/**The number of rows of cells in each maze.*/
+	private int rows = 10;
+
+	/**The number of columns of cells in each maze.*/
+	private int columns = 10;
+
+	/**The algorithm each maze is built with.*/
+	private Maze.Algorithm algorithm = Maze.Algorithm.PRIM;
+
+	/**The seed the seeds of the mazes are drawn from.*/
+	private long seed = ThreadLocalRandom.current().nextLong();
+
+	/**The entrance location of each maze, as given to the Maze constructor.*/
+	private int entrance;
+
+	/**The exit location of each maze, as given to the Maze constructor.*/
+	private int exit;
+
+	/**The algorithm each maze is solved with, or null not to solve them.*/
+	private Maze.Solver solver;
+
+	/**The directory to write the mazes to, or null not to write them.*/
+	private Path outDir;
+
+	/**True to write maze files, false to write text.*/
+	private boolean binary;
+
+	/**The number of threads building mazes.*/
+	private int threads = Runtime.getRuntime().availableProcessors();
+
+	/**True to time generation and analyze each maze.*/
+	private boolean metrics;
+
+	/**The nanoseconds taken to generate each maze, when reporting metrics.*/
+	private long[] generationTimes;
+
+	/**The metrics of each maze, when reporting them.*/
+	private MazeMetrics[] mazeMetrics;
+
+	/**Runs a batch as described by the arguments, exiting with status 2 if they are bad.*/
+	public static void main(String[] args) throws Exception {
+		Main batch = new Main();
+		try {
+			batch.parse(args);
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println(USAGE);
+			System.exit(2);
+		}
+		batch.run();
 	}
-	
-	/**This method executes the requirements of a 5 x 5 maze with debugging and a larger
-	 * maze without debugging, as per the assignment specs.*/
-	private static void assignment() {
-		
-		Maze m1 = new Maze(5, 5, true);
-		m1.display();
-		MazeObserver mb = new MazeObserver();
-		m1.addObserver(mb);
-		m1.prim();
-		System.out.println("DFS");
-		m1.dfs();
-		m1.display();
-		
-		System.out.println("BFS");
-		m1.bfs();
-
-		m1.display();
-		
-//		System.out.println("Larger, Debug off");
-//		Maze m2 = new Maze(20, 20, false);
-//		m2.prim();
-//		m2.dfs();
-//		m2.display();
+
+	/**Reads the options from the command line arguments.*/
+	private void parse(String[] args) {
+		for (int a = 0; a < args.length; a++) {
+			String option = args[a];
+			if (option.equals("--help") || option.equals("-h")) {
+				System.out.println(USAGE);
+				System.exit(0);
+			}
+			if (option.equals("--metrics")) {
+				metrics = true;
+				continue;
+			}
+			if (a + 1 == args.length) {
+				throw new IllegalArgumentException("Missing value for " + option);
+			}
+			String value = args[++a];
+			switch (option) {
+				case "--count": count = parseInt(option, value, 0); break;
+				case "--rows": rows = parseInt(option, value, 1); break;
+				case "--columns": columns = parseInt(option, value, 1); break;
+				case "--algorithm": algorithm = parseName("algorithm", Maze.Algorithm.values(), value); break;
+				case "--seed": seed = parseLong(option, value); break;
+				case "--entrance": entrance = parseInt(option, value, Integer.MIN_VALUE); break;
+				case "--exit": exit = parseInt(option, value, Integer.MIN_VALUE); break;
+				case "--solve": solver = parseName("solver", Maze.Solver.values(), value); break;
+				case "--out": outDir = Paths.get(value); break;
+				case "--format":
+					if (!value.equals("text") && !value.equals("binary")) {
+						throw new IllegalArgumentException("Unknown format: " + value);
+					}
+					binary = value.equals("binary");
+					break;
+				case "--threads": threads = parseInt(option, value, 1); break;
+				default: throw new IllegalArgumentException("Unknown option: " + option);
+			}
+		}
+		if ((long) rows * columns > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Too many cells: " + rows + " x " + columns);
+		}
 	}
-	
-	/**
-	 * Times how long it takes to generate a massive maze, so I can determine if I need to
-	 * optimize the algorithms.
-	 * @param m the m dimension
-	 * @param n the n dimension
-	 */
-	private static void timedTest(int m, int n) {
-		long startTime = System.currentTimeMillis();
-		
-		Maze massive = new Maze(m, n, false);
-		
-		//massive.display();
-		System.out.printf("Time to generate %d x %d maze: %d milliseconds\n", 
-				m, n, System.currentTimeMillis() - startTime);
-		
-		startTime = System.currentTimeMillis();
-		massive.dfs();
-		System.out.printf("Time to solve %d x %d maze: %d milliseconds\n", 
-				m, n, System.currentTimeMillis() - startTime);
+
+	/**Returns the value of an int option, which must be at least min.*/
+	private static int parseInt(String option, String value, int min) {
+		try {
+			int parsed = Integer.parseInt(value);
+			if (parsed >= min) {
+				return parsed;
+			}
+		} catch (NumberFormatException e) {
+			//reported below
+		}
+		throw new IllegalArgumentException("Bad value for " + option + ": " + value);
 	}
-	
-
-	
-	/**
-	 * Confirms that negative dimensions are handled.
-	 */
-	private static void paramExceptionsTest() {
-		
-		System.out.println("Negative horizontal dimension");
-		Maze negHoriz = new Maze(-20, 20, false);
-		negHoriz.display();
-		System.out.println("Negative vertical dimension");
-		Maze negVert = new Maze(20, -20, false);
-		negVert.display();
-		
-		//Noticed post-turn in that these will throw exceptions when dfs is called on them
-		//likely because there's nothing to search??
-		System.out.println("Zero horizontal dimension");
-		Maze zeroHoriz = new Maze(0, 1, true);
-		//zeroHoriz.dfs();
-		zeroHoriz.display();
-		System.out.println("Zero vertical dimension");
-		Maze zeroVert = new Maze(1, 0, true);
-		zeroVert.display();
-		System.out.println("Zero both dimensions");
-		Maze empty = new Maze(0, 0, true);
-		empty.display();
+
+	/**Returns the value of a long option.*/
+	private static long parseLong(String option, String value) {
+		try {
+			return Long.parseLong(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Bad value for " + option + ": " + value);
+		}
 	}
-	
-
-	
-	/**
-	 * Randomly generates start and exit locations to make sure Maze handles index out of 
-	 * bounds problems
-	 */
-	private static void randomStartAndExitTest() {
-		Random randy = new Random();
-		System.out.println("Larger, Debug off, entrance and exit randomly specified.");
-		int entranceColumn = randy.nextInt();		
-		int exitColumn = randy.nextInt()/2;
-		System.out.printf("Entrance column: %d\n", entranceColumn);
-		System.out.printf("Exit column: %d\n", exitColumn);
-		Maze m3 = new Maze(10, 20, entranceColumn, exitColumn, 's', 'f', false);
-		m3.display();
+
+	/**Returns the one of the given values named, ignoring case, dashes and underscores.*/
+	private static <E extends Enum<E>> E parseName(String kind, E[] values, String value) {
+		String wanted = value.replace("-", "").replace("_", "");
+		for (E e : values) {
+			if (e.name().replace("_", "").equalsIgnoreCase(wanted)) {
+				return e;
+			}
+		}
+		throw new IllegalArgumentException("Unknown " + kind + ": " + value);
 	}
-	
-	/**
-	 * Tests specific dimensions, including ones that caused exceptions in the 
-	 * randomStartAndExitTest.
-	 * One specifical situation:
-	 * "Exception in thread "main" java.lang.IndexOutOfBoundsException: Index: 200, Size: 200"
-	 * Seemed to happen when location came to 1 less than the perimeter. (59 and 60 in this case)
-	 * Then I ran this method with the debugger and figured out which one of my formulas
-	 * was off.
-	 */
-	private static void startAndExitTest() {
-		//Both generated exceptions:
-		Maze test1 = new Maze(10, 20, 0, 59,'s', 'f', false); //perimeter = 60, location = 59
-		test1.display();
-		Maze test2 = new Maze(5, 5, 0, 19, 's', 'f', false); //perimeter = 20, location = 19
-		test2.display();
-		
-		//Confirms that the coordinate system I made works (Start and exit in correct locations)
-		Maze test3 = new Maze(10, 20, 43, 2, 's', 'f', false);
-		test3.dfs();
-		test3.display();
+
+	/**Returns the names of the given values as they are given on the command line, such
+	 * as "a, b or c".*/
+	private static String names(Enum<?>[] values) {
+		StringBuilder names = new StringBuilder();
+		for (int i = 0; i < values.length; i++) {
+			names.append(i == 0 ? "" : i + 1 == values.length ? " or " : ", ");
+			names.append(values[i].name().toLowerCase(Locale.ROOT).replace('_', '-'));
+		}
+		return names.toString();
 	}
-	
-	/**
-	 * Makes sure that certain dimensions -- n divisible by m, size 1 x 1 -- work properly.
-	 */
-	private static void oddSizesTest() {
-		System.out.println("9 x 3 maze");
-		Maze narrow = new Maze(9, 3, false);
-		narrow.display();
-		System.out.println("Baby maze!");
-		Maze tiny = new Maze(1, 1, false);	
-		tiny.display();
+
+	/**Builds the batch on the thread pool and reports how it went.*/
+	private void run() throws IOException, InterruptedException {
+		if (outDir != null) {
+			Files.createDirectories(outDir);
+		}
+		long[] seeds = new long[count];
+		SplittableRandom seeder = new SplittableRandom(seed);
+		for (int i = 0; i < count; i++) {
+			seeds[i] = seeder.nextLong();
+		}
+
+		generationTimes = new long[count];
+		mazeMetrics = new MazeMetrics[count];
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		long[] latencies = new long[count];
+		long begin = System.nanoTime();
+		try {
+			List<Future<Long>> results = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				int index = i;
+				results.add(pool.submit(() -> buildOne(index, seeds[index])));
+			}
+			for (int i = 0; i < count; i++) {
+				latencies[i] = results.get(i).get();
+			}
+		} catch (ExecutionException e) {
+			System.err.println("Maze failed: " + e.getCause());
+			System.exit(1);
+		} finally {
+			pool.shutdownNow();
+		}
+		long elapsed = System.nanoTime() - begin;
+
+		Arrays.sort(latencies);
+		System.out.printf(Locale.ROOT, "Built %d %d x %d mazes with %s on %d threads in %.3f s%n",
+				count, rows, columns, algorithm, threads, elapsed / 1e9);
+		if (count > 0) {
+			System.out.printf(Locale.ROOT, "%.1f mazes/s, latency p50 %.3f ms, p99 %.3f ms, max %.3f ms%n",
+					count / (elapsed / 1e9), percentile(latencies, 50) / 1e6,
+					percentile(latencies, 99) / 1e6, latencies[count - 1] / 1e6);
+		}
+		if (metrics && count > 0) {
+			reportMetrics();
+		}
 	}
 
+	/**Reports the generation times and the mean metrics of the mazes built.*/
+	private void reportMetrics() {
+		long[] times = generationTimes.clone();
+		Arrays.sort(times);
+		System.out.printf(Locale.ROOT, "Generation with %s: p50 %.3f ms, p99 %.3f ms, %.1f ns/cell%n",
+				algorithm, percentile(times, 50) / 1e6, percentile(times, 99) / 1e6,
+				(double) percentile(times, 50) / Math.max(1, rows * columns));
+		double deadEnds = 0;
+		double junctions = 0;
+		double corridor = 0;
+		double solution = 0;
+		double diameter = 0;
+		for (MazeMetrics m : mazeMetrics) {
+			deadEnds += (double) m.getDeadEnds() / m.getCells();
+			junctions += (double) m.getJunctions() / m.getCells();
+			corridor += m.getMeanCorridorLength();
+			solution += m.getSolutionLength();
+			diameter += m.getDiameter();
+		}
+		System.out.printf(Locale.ROOT, "Mean dead ends %.1f%%, junctions %.1f%%, corridor length %.2f, "
+				+ "solution length %.1f, diameter %.1f%n", 100 * deadEnds / count, 100 * junctions / count,
+				corridor / count, solution / count, diameter / count);
+	}
 
-	
-	
-	public static class MazeObserver implements Observer {
-		
-		@Override
-		public void update(Observable o, Object arg) {
-			if (o instanceof Maze) {
-				Maze m = (Maze) o;
-				//display m
-				m.display();
+	/**Builds, solves and writes one maze, returning how many nanoseconds it took, then
+	 * analyzes it if metrics are reported.*/
+	private long buildOne(int index, long mazeSeed) throws IOException {
+		long begin = System.nanoTime();
+		Maze maze = new Maze(rows, columns, entrance, exit, ' ', ' ', mazeSeed);
+		maze.generate(algorithm);
+		if (metrics) {
+			generationTimes[index] = System.nanoTime() - begin;
+		}
+		if (solver != null) {
+			maze.solve(solver);
+		}
+		if (outDir != null) {
+			String name = String.format(Locale.ROOT, "maze-%06d", index);
+			if (binary) {
+				maze.save(outDir.resolve(name + ".maze"));
+			} else {
+				try (Writer out = Files.newBufferedWriter(outDir.resolve(name + ".txt"), TEXT_CHARSET)) {
+					maze.write(out);
+				}
 			}
 		}
-		
-		
+		long latency = System.nanoTime() - begin;
+		if (metrics) {
+			mazeMetrics[index] = maze.analyze();										//Not part of the latency
+		}
+		return latency;
 	}
 
+	/**Returns the nearest-rank percentile of the given sorted values.*/
+	private static long percentile(long[] sorted, int percent) {
+		int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+		return sorted[Math.max(0, rank - 1)];
+	}
 
 }
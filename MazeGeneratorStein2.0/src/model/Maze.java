@@ -3,84 +3,162 @@
 
 package model;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.BitSet;
 import java.util.Observable;
-import java.util.Random;
-import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
 
 
 /**
- * A Maze generating and solving class that uses a graph with adjacency lists,
- * Kruskals or Prim's algorithm, and Depth First or Breadth First Search. By default, the
- * entrance is at the top left and the exit is at the bottom right. Also
- * contains a bonus constructor that allows the user to specify the location of
- * the entrance and exit and to indicate how they are marked.
- * 
+ * A Maze generating and solving class that uses a grid of cells with bit-packed walls,
+ * Kruskals or Prim's algorithm, and Depth First, Breadth First, A* or bidirectional
+ * Breadth First Search. By default, the entrance is at the top left and the exit is at
+ * the bottom right. Also contains a bonus constructor that allows the user to specify
+ * the location of the entrance and exit and to indicate how they are marked.
+ * Every change the algorithms make is reported to registered MazeListeners as a delta on
+ * cell indices; Observers are still notified once per step, but must copy the whole Maze
+ * to see what changed.
+ *
  * @author Tabitha Stein
  * @version 2.0
  */
 public class Maze extends Observable {
 
-	/**A 2D array holding the display of this Maze.*/
-	private final char[][] mazeArr;
-	
-	/**A 2D array holding a path through this Maze*/
-	private char[][] pathArr;
-	
+	/**The cells of this Maze, holding its walls and the markings made by its algorithms.*/
+	private final MazeGrid grid;
+
 	/**The number of vertices in the vertical direction.*/
-	private final int numRows; 
-	
+	private final int numRows;
+
 	/**The number of vertices in the horizontal direction.*/
 	private final int numColumns;
-	
-	/**A list of all vertices in this Maze, ordered from the top left to the bottom right.*/
-	private final ArrayList<Vertex> vertices;
-	
-	/**A reference to the entrance to this Maze.*/
-	private final Vertex start;
-	
-	/**A reference to the exit to this Maze.*/
-	private final Vertex exit;
-	
+
+	/**The index of the entrance cell to this Maze, or -1 if it has no cells.*/
+	private final int start;
+
+	/**The index of the exit cell to this Maze, or -1 if it has no cells.*/
+	private final int exit;
+
 	/**Character to represent walls in the display.*/
 	public static final char WALL = 'X';
-	
+
 	/**Character to represent the path taken in the display.*/
 	public static final char PATH = '';
-	
+
 	/**Character to represent the steps taken in the path in the display.*/
 	public static final char TENTATIVE = 'o';
-	
+
 	/**Character to represent vertices that have been visited by Prim's algorithm.*/
 	public static final char VISITED = 'V';
-	
-	/**The character to mark the entrance to the maze.*/
-	private final char entranceMarker;
-	
-	/**The character to mark the exit to the maze.*/
-	private final char exitMarker;
-	
-	/**Generates random numbers for selecting neighbors in both Prim's (since weighting 
-	 * isn't used) and DFS, and random trees in Kruskal's.*/
-	private static final Random RANDY = new Random();
-	
+
+	/**
+	 * The algorithms that can build a Maze, for choosing one by name or value.
+	 */
+	public enum Algorithm {
+		/**{@link Maze#prim()}*/
+		PRIM,
+		/**{@link Maze#kruskal()}*/
+		KRUSKAL,
+		/**{@link Maze#unionFindKruskal()}*/
+		UNION_FIND_KRUSKAL,
+		/**{@link Maze#parallelBoruvka()}*/
+		PARALLEL_BORUVKA
+	}
+
+	/**
+	 * The algorithms that can solve a Maze, for choosing one by name or value.
+	 */
+	public enum Solver {
+		/**{@link Maze#depthFirstSearch()}*/
+		DEPTH_FIRST,
+		/**{@link Maze#breadthFirstSearch()}*/
+		BREADTH_FIRST,
+		/**{@link Maze#aStar()}*/
+		A_STAR,
+		/**{@link Maze#bidirectionalSearch()}*/
+		BIDIRECTIONAL,
+		/**{@link Maze#fillDeadEnds()}*/
+		DEAD_END_FILLING
+	}
+
+	/**Generates random numbers for selecting neighbors in both Prim's (since weighting
+	 * isn't used) and DFS, and random trees in Kruskal's. Owned by this Maze alone, so
+	 * mazes built on different threads never contend for it.*/
+	private SplittableRandom randy;
+
+	/**The seed randy was last created from.*/
+	private long seed;
+
+	/**The seed this Maze was built from.*/
+	private long buildSeed;
+
+	/**The algorithm this Maze was built with, or null if it has not been built or was built
+	 * in a way its algorithm and seed alone do not repeat.*/
+	private Algorithm builtWith;
+
 	/**When true, generation algorithms are disabled.*/
 	private boolean isBuilt;
-	
+
+	/**False for the parts of a larger Maze, whose builds are recorded in MazeStats as one
+	 * build of the larger Maze rather than one each.*/
+	private boolean recordsStats = true;
+
+	/**The listeners to report changes to; replaced rather than modified when one is added
+	 * or removed, so it can be iterated without a copy.*/
+	private MazeListener[] listeners = new MazeListener[0];
+
+	/**Working storage for the solving algorithms, kept from one solve to the next.*/
+	private SearchBuffers searchBuffers;
+
+	/**The index of the paths through this Maze, built the first time it is asked for.*/
+	private PathIndex pathIndex;
+
+	/**Marks each step the solving algorithms take, notifying Observers of each.*/
+	private final MazeListener solveSteps = new MazeListener() {
+		@Override
+		public void wallRemoved(int cellA, int cellB) {
+		}
+
+		@Override
+		public void cellMarked(int cell, char marker) {
+			mark(cell, marker);
+			notifyStep();
+		}
+
+		@Override
+		public void buildFinished() {
+		}
+
+		@Override
+		public void pathCleared() {
+		}
+	};
+
 	/**
 	 * Generates a maze of the given dimensions (m rows, n columns) using Prim's algorithm.
 	 * @param m the number of rows
 	 * @param n the number of columns
 	 */
 	public Maze(int m, int n) {
-		this(m, n, 0, 0, ' ', ' ');		
+		this(m, n, 0, 0, ' ', ' ');
+	}
+
+	/**
+	 * Generates a maze of the given dimensions (m rows, n columns) whose random choices
+	 * are drawn from the given seed, so the same seed, dimensions and algorithms always
+	 * give the same Maze.
+	 * @param m the number of rows
+	 * @param n the number of columns
+	 * @param seed the seed for this Maze's random number generator
+	 */
+	public Maze(int m, int n, long seed) {
+		this(m, n, 0, 0, ' ', ' ', seed);
 	}
-	
+
 	/**
 	 * An alternative constructor allowing user to specify the location where the entrance
 	 * and exit are located. The value for the entrance begins at the top left corner and
@@ -91,103 +169,197 @@ public class Maze extends Observable {
 	 * @param m the number of rows
 	 * @param n the number of columns
 	 * @param entranceLoc the location around the parameter from the top left where the
-	 *        entrance is located. 
+	 *        entrance is located.
 	 * @param exitLoc the location around the parameter from the bottom right where the
-	 *        exit is located. 
+	 *        exit is located.
 	 * @param entMark the character for displaying the entrance
 	 * @param exMark the character for displaing the exit
 	 */
 	public Maze(int m, int n, int entranceLoc, int exitLoc, char entMark, char exMark) {
+		this(m, n, entranceLoc, exitLoc, entMark, exMark, ThreadLocalRandom.current().nextLong());
+	}
+
+	/**
+	 * The alternative constructor, with the seed for this Maze's random number generator.
+	 * @param m the number of rows
+	 * @param n the number of columns
+	 * @param entranceLoc the location around the parameter from the top left where the
+	 *        entrance is located.
+	 * @param exitLoc the location around the parameter from the bottom right where the
+	 *        exit is located.
+	 * @param entMark the character for displaying the entrance
+	 * @param exMark the character for displaing the exit
+	 * @param seed the seed for this Maze's random number generator
+	 */
+	public Maze(int m, int n, int entranceLoc, int exitLoc, char entMark, char exMark, long seed) {
 		isBuilt = false;
-		
-		entranceMarker = entMark;
-		exitMarker = exMark;
+		setSeed(seed);
+
 		numRows = Math.abs(m); //Protects against negative dimensions
 		numColumns = Math.abs(n);
-		mazeArr = new char[(numRows * 2) + 1][(numColumns * 2) + 1];
-		for (char[] cArr : mazeArr) {
-			Arrays.fill(cArr, WALL);
-		}
-		
-		pathArr = new char[mazeArr.length][mazeArr[0].length];
-				
-		vertices = new ArrayList<Vertex>(numRows*numColumns);
-		
-		if (numRows > 0 && numColumns > 0) {
-			for (int i = 0; i < numRows; i++) {
-				int row = i * 2 + 1;
-				for (int j = 0; j < numColumns; j++) {
-					int column = j * 2 + 1;
-					vertices.add(new Vertex(row, column));
-					mazeArr[row][column] = ' '; // Put a space where vertices
-												// are placed
-				}
-			}
-
-			start = vertices.get(getDoorIndex(entranceLoc));
-			clearDoorway(start, entranceMarker);
-
-			exit = vertices.get(getDoorIndex(exitLoc + numColumns + numRows));
-			clearDoorway(exit, exitMarker);
 
-			buildLattice();
+		if (numRows > 0 && numColumns > 0) {
+			start = getDoorIndex(entranceLoc);
+			exit = getDoorIndex(exitLoc + numColumns + numRows);
 		} else { //Protects against algorithms running on empty mazes
-			start = exit = null;
+			start = exit = -1;
 		}
-		
+		grid = new MazeGrid(numRows, numColumns, start, exit, entMark, exMark);
 	}
-	
-	/**Returns the index where the start or exit should be within the vertices array.*/
+
+	/**
+	 * Returns a Maze of the given dimensions and seed to be built as part of a larger one,
+	 * such as a tile, whose build is not recorded in MazeStats.
+	 */
+	static Maze part(int m, int n, long seed) {
+		Maze part = new Maze(m, n, seed);
+		part.recordsStats = false;
+		return part;
+	}
+
+	/**Returns the index of the cell where the start or exit should be.*/
 	private int getDoorIndex(int distance) {
 		int perimeter = 2 * (numRows + numColumns);
 		int side = Math.abs(distance) % perimeter;
 		int index = 0;
 		if (side < numColumns) { index = side; }
 		else if (side < perimeter / 2) { index = ((side - numColumns) * numColumns) + numColumns - 1; }
-		else if (side < perimeter - numRows) { index = vertices.size() - 1 - (side - numColumns - numRows); }
+		else if (side < perimeter - numRows) { index = numRows * numColumns - 1 - (side - numColumns - numRows); }
 		else { index = (perimeter - (side + 1)) * numColumns; }
 		return index;
 	}
-	
-	/**Replaces the character "behind" the given Vertex with the given character, iff the
-	 * Vertex is on the border of the mazeArr.*/
-	private void clearDoorway(Vertex door, char marker) {
-		if (door.row == 1) { //at top
-			mazeArr[door.row - 1][door.column] = marker;
-		} else if (door.row == mazeArr.length - 2) { //at bottom
-			mazeArr[door.row + 1][door.column] = marker;
-		} else if (door.column == 1) { //left side
-			mazeArr[door.row][door.column-1] = marker;
-		} else if (door.column == mazeArr[0].length - 2) { //right side
-			mazeArr[door.row][door.column+1] = marker;
-		}
-	}
-	
-	
-	/**Connects each vertex in Maze to the vertex above, below, left, and right, for each 
-	 * that exists.*/
-	private void buildLattice() {
-		//Add neighbors to each vertex
-		for (int i = 0; i < vertices.size(); i++) {
-			Vertex current = vertices.get(i);
-		
-			int above = i - numColumns; //if it's >= 0, there is a vertex above this one		
-			if (above >= 0) { current.addNeighbor(vertices.get(above)); }
-			
-			int below = i + numColumns; //if it's < vertices.size(), there is a vertex below this one	
-			if (below < vertices.size()) { current.addNeighbor(vertices.get(below)); }
-			
-			int right = i + 1; //must be on same row: to check for this, test if you are 
-							   //in last column right is divisible by numColumns
-			if (right % numColumns != 0) { current.addNeighbor(vertices.get(right)); }
-			
-			int left = i - 1;  //If you can't go left, you are in the first column. You are 
-							   //in the first column if i is divisible by numColumns
-			if (i % numColumns != 0) { current.addNeighbor(vertices.get(left)); }
-		}
-		
-	}
-	
+
+	/**
+	 * Registers a listener to be told of every change made to this Maze from now on.
+	 * @param listener the listener to add
+	 */
+	public void addMazeListener(MazeListener listener) {
+		listeners = Arrays.copyOf(listeners, listeners.length + 1);
+		listeners[listeners.length - 1] = listener;
+	}
+
+	/**
+	 * Stops reporting changes to the given listener.
+	 * @param listener the listener to remove
+	 */
+	public void removeMazeListener(MazeListener listener) {
+		for (int i = 0; i < listeners.length; i++) {
+			if (listeners[i] == listener) {
+				MazeListener[] remaining = new MazeListener[listeners.length - 1];
+				System.arraycopy(listeners, 0, remaining, 0, i);
+				System.arraycopy(listeners, i + 1, remaining, i, remaining.length - i);
+				listeners = remaining;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Returns a new grid with the dimensions and doorways of this Maze and every wall
+	 * standing, as it was before being built. Replaying this Maze's changes onto it
+	 * reconstructs any intermediate state on demand.
+	 */
+	public MazeGrid createBlankGrid() {
+		return new MazeGrid(numRows, numColumns, start, exit, grid.getEntranceMarker(), grid.getExitMarker());
+	}
+
+	/**
+	 * Restarts this Maze's random number generator from the given seed.
+	 * @param seed the seed
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+		randy = new SplittableRandom(seed);
+	}
+
+	/**
+	 * Returns the seed this Maze's random number generator was last started from.
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Builds this Maze with the given algorithm.
+	 * @param algorithm the algorithm to build with
+	 */
+	public void generate(Algorithm algorithm) {
+		switch (algorithm) {
+			case PRIM				:	prim();
+										break;
+			case KRUSKAL			:	kruskal();
+										break;
+			case PARALLEL_BORUVKA	:	parallelBoruvka();
+										break;
+			default					:	unionFindKruskal();
+										break;
+		}
+	}
+
+	/**
+	 * Builds this Maze with the given algorithm, after restarting its random number
+	 * generator from the given seed.
+	 * @param algorithm the algorithm to build with
+	 * @param seed the seed
+	 */
+	public void generate(Algorithm algorithm, long seed) {
+		setSeed(seed);
+		generate(algorithm);
+	}
+
+	/**Returns the grid holding the cells of this Maze.*/
+	MazeGrid getGrid() {
+		return grid;
+	}
+
+	/**
+	 * Returns the cells of this Maze, for reading its walls and markings without copying
+	 * them into arrays. The cells change as the Maze is built and solved.
+	 */
+	public CellGraph getCells() {
+		return grid;
+	}
+
+	/**
+	 * Returns a copy of the cells of this Maze as they are now, which does not change as
+	 * the Maze goes on being built and solved, so it can be read on another thread.
+	 */
+	public CellGraph copyCells() {
+		return grid.copy();
+	}
+
+	/**
+	 * Returns the number of rows of cells in this Maze.
+	 */
+	public int getRows() {
+		return numRows;
+	}
+
+	/**
+	 * Returns the number of columns of cells in this Maze.
+	 */
+	public int getColumns() {
+		return numColumns;
+	}
+
+	/**
+	 * Returns the algorithm this Maze was built with, if building a Maze of the same
+	 * dimensions and entrance from {@link #getBuildSeed()} with it gives the same walls.
+	 * @return the algorithm, or null if this Maze has not been built, or was built by
+	 *         {@link #tiled(Algorithm, int, int)} or unweighted {@link #prim(boolean)}
+	 */
+	public Algorithm getBuiltWith() {
+		return builtWith;
+	}
+
+	/**
+	 * Returns the seed this Maze was built from, which its seed may since have been
+	 * restarted from another.
+	 */
+	public long getBuildSeed() {
+		return isBuilt ? buildSeed : seed;
+	}
+
 	/**
 	 * Returns true if this Maze is finished being built; false otherwise.
 	 * @return
@@ -195,226 +367,544 @@ public class Maze extends Observable {
 	public boolean getBuilt() {
 		return isBuilt;
 	}
-	
+
 	/**
 	 * My implementation of Kruskal's Algorithm using disjoint sets to represent
-	 * connected subgraphs without cycles, and a hashmap that for any given
-	 * vertex reports the subgraph it is a member of. A list of disjoint sets is
+	 * connected subgraphs without cycles. Each set is a circular list of its cells
+	 * threaded through an int array, and the set any given cell is a member of is
+	 * found through union-find parent pointers. A list of the sets' root cells is
 	 * maintained, and the sets are joined in a random order by one edge until
-	 * there is only one set in the list containing all the vertices.
+	 * there is only one set in the list containing all the cells.
 	 */
 	public void kruskal() {
 		if (!isBuilt) {
-			ArrayList<HashSet<Vertex>> forest = new ArrayList<HashSet<Vertex>>(vertices.size());
-			HashMap<Vertex, HashSet<Vertex>> treeMembership = new HashMap<Vertex,HashSet<Vertex>>();
-			for (int i = 0; i < vertices.size(); i++) {
-				HashSet<Vertex> tree_i = new HashSet<Vertex>();
-				tree_i.add(vertices.get(i));
-				forest.add(tree_i);
-				treeMembership.put(vertices.get(i), tree_i); 						//record membership of this vertex
+			long begin = System.nanoTime();
+			long edges = 0;
+			int size = grid.size();
+			int[] forest = new int[size];											//Root cell of each tree
+			int[] forestIndex = new int[size];										//Position of each root in forest
+			int[] treeMembership = new int[size];									//Union-find parent of each cell
+			int[] nextMember = new int[size];										//Circular list of each tree's cells
+			byte[] rank = new byte[size];
+			for (int i = 0; i < size; i++) {
+				forest[i] = forestIndex[i] = treeMembership[i] = nextMember[i] = i;
 			}
+			int forestSize = size;
+			int[] adjacent = new int[4];
 			/*One tree in forest means the minimum spanning tree is complete*/
-			while (forest.size() > 1) {				
-				HashSet<Vertex> treeA = forest.get(RANDY.nextInt(forest.size()));	//random tree			
-				Iterator<Vertex> treeAVertexIterator = treeA.iterator();
-				boolean notJoined = true;											
-				while (notJoined && treeAVertexIterator.hasNext()) {				//stop after union or no more vertices
-					Vertex vertA = treeAVertexIterator.next();					
-					Iterator<Vertex> neighbors_it = vertA.neighbors.iterator();		//find a neighbor not in tree A
-					while (notJoined && neighbors_it.hasNext()) {
-						Vertex vertB = neighbors_it.next();
-						if (!treeA.contains(vertB)) { 								//adding edge will not create cycle							
-							HashSet<Vertex> treeB = treeMembership.get(vertB);					
-							treeA.addAll(treeB); 									//treeA = treeA UNION treeB	
-							for (Vertex v : treeB) {
-								treeMembership.put(v, treeA);
-							}
-							forest.remove(treeB);
-							addEdge(vertA, vertB);				
+			while (forestSize > 1) {
+				int treeA = forest[randy.nextInt(forestSize)];						//random tree
+				int vertA = treeA;
+				boolean notJoined = true;
+				do {																//stop after union or no more cells
+					int count = grid.neighbors(vertA, adjacent);					//find a neighbor not in tree A
+					for (int i = 0; notJoined && i < count; i++) {
+						int vertB = adjacent[i];
+						edges++;
+						int treeB = find(treeMembership, vertB);
+						if (treeB != treeA) {										//adding edge will not create cycle
+							int absorbed = union(treeMembership, rank, treeA, treeB);
+							int last = forest[--forestSize];						//drop absorbed root from forest
+							forest[forestIndex[absorbed]] = last;
+							forestIndex[last] = forestIndex[absorbed];
+							int swap = nextMember[treeA];							//splice the member lists
+							nextMember[treeA] = nextMember[treeB];
+							nextMember[treeB] = swap;
+							addEdge(vertA, vertB);
 							notJoined = false;
-							setChanged();
-							notifyObservers();
+							notifyStep();
 						}
 					}
+					vertA = nextMember[vertA];
+				} while (notJoined && vertA != treeA);
+			}
+			if (recordsStats) {
+				MazeStats.get().recordUnions(Math.max(0, size - 1));
+				MazeStats.get().recordGeneration(size, edges, System.nanoTime() - begin);
+			}
+			finishBuild(Algorithm.KRUSKAL);
+		}
+
+	}
+
+	/**
+	 * Randomized Kruskal's algorithm over a flat array of lattice edges and a union-find
+	 * forest. Each edge is encoded as twice the index of its upper/left vertex, plus one
+	 * if it leads south rather than east. The edges are shuffled once, then walked in order,
+	 * and an edge is added whenever its vertices are in different trees. The trees are kept
+	 * as int parent pointers with path compression and union by rank, so generation is
+	 * close to linear rather than rewriting the membership of whole trees on every union.
+	 */
+	public void unionFindKruskal() {
+		if (!isBuilt) {
+			long begin = System.nanoTime();
+			int size = grid.size();
+			int[] edges = new int[edgeCount()];
+			int count = 0;
+			for (int i = 0; i < size; i++) {
+				if ((i + 1) % numColumns != 0) { edges[count++] = i * 2; }			//east
+				if (i + numColumns < size) { edges[count++] = i * 2 + 1; }			//south
+			}
+			for (int i = count - 1; i > 0; i--) {										//Fisher-Yates shuffle
+				int j = randy.nextInt(i + 1);
+				int swap = edges[i];
+				edges[i] = edges[j];
+				edges[j] = swap;
+			}
+
+			int[] parent = new int[size];
+			byte[] rank = new byte[size];
+			for (int i = 0; i < parent.length; i++) {
+				parent[i] = i;
+			}
+			int unions = 0;
+			int e = 0;
+			for (; e < count && unions < size - 1; e++) {							//a spanning tree has |V| - 1 edges
+				int a = edges[e] >>> 1;
+				int b = (edges[e] & 1) == 0 ? a + 1 : a + numColumns;
+				int rootA = find(parent, a);
+				int rootB = find(parent, b);
+				if (rootA != rootB) {													//adding edge will not create cycle
+					union(parent, rank, rootA, rootB);
+					addEdge(a, b);
+					unions++;
+					notifyStep();
 				}
-			}						
-			isBuilt = true;
-			purgeVisitedMarkings();
+			}
+			if (recordsStats) {
+				MazeStats.get().recordUnions(unions);
+				MazeStats.get().recordGeneration(size, e, System.nanoTime() - begin);
+			}
+			finishBuild(Algorithm.UNION_FIND_KRUSKAL);
 		}
-		
 	}
 
 	/**
-	 * Uses an implementation of Prim's algorithm to build a path among neighboring 
-	 * vertices by finding a minimum spanning tree, stored implicitly within each Vertex
-	 * using a second adjacency list. Branches out from the starting vertex by adding an edge
-	 * to a random unvisited vertex adjacent to one we've visited, called the "frontier." The
-	 * frontier can contain duplicates, so there is higher probability of picking a Vertex adjacent
-	 * to multiple visited vertices.
+	 * Builds this Maze on every core of the common ForkJoinPool, using Boruvka's algorithm
+	 * with random edge weights drawn from this Maze's seed: each round, every tree joins the
+	 * tree across its lightest outgoing edge, until one tree spans the Maze. The result is a
+	 * perfect maze, the same for a given seed however the work is scheduled. The walls come
+	 * down all at once, so Observers are notified a single time, and any MazeListeners are
+	 * told of each removed wall afterwards, in order of cell, on the calling thread.
+	 */
+	public void parallelBoruvka() {
+		if (!isBuilt) {
+			long begin = System.nanoTime();
+			ParallelBoruvka.build(grid, randy.nextLong());
+			if (recordsStats) {
+				MazeStats.get().recordGeneration(grid.size(), 0, System.nanoTime() - begin);
+			}
+			fireAllWallsRemoved();
+			notifyStep();
+			finishBuild(Algorithm.PARALLEL_BORUVKA);
+		}
+	}
+
+	/**
+	 * Builds this Maze as rectangular tiles, each a perfect maze built by the given
+	 * algorithm on its own thread of the common ForkJoinPool, then stitches the tiles
+	 * together by opening exactly one passage along each seam of a random spanning tree
+	 * over the tiles. Keeps each thread's working set the size of a tile, and the result
+	 * is still a perfect maze with the usual entrance and exit. As with
+	 * {@link #parallelBoruvka()}, Observers are notified once and MazeListeners are told
+	 * of every removed wall once the Maze is built.
+	 * @param algorithm the algorithm to build each tile with
+	 * @param tileRows the number of rows of cells in each tile
+	 * @param tileColumns the number of columns of cells in each tile
+	 */
+	public void tiled(Algorithm algorithm, int tileRows, int tileColumns) {
+		if (!isBuilt) {
+			//Protects against tiles with no cells, or larger than the Maze
+			int height = Math.max(1, Math.min(Math.abs(tileRows), numRows));
+			int width = Math.max(1, Math.min(Math.abs(tileColumns), numColumns));
+			long begin = System.nanoTime();
+			TiledGenerator.build(grid, algorithm, height, width, randy);
+			if (recordsStats) {
+				MazeStats.get().recordGeneration(grid.size(), 0, System.nanoTime() - begin);
+			}
+			fireAllWallsRemoved();
+			notifyStep();
+			finishBuild(null);
+		}
+	}
+
+	/**Tells the listeners of every wall that is down, in order of cell, after an algorithm
+	 * that knocks walls down without reporting each one.*/
+	private void fireAllWallsRemoved() {
+		if (listeners.length > 0) {
+			for (int i = 0; i < grid.size(); i++) {
+				if (grid.isOpenEast(i)) { fireWallRemoved(i, i + 1); }
+				if (grid.isOpenSouth(i)) { fireWallRemoved(i, i + numColumns); }
+			}
+		}
+	}
+
+	/**Returns the root of the tree containing the given vertex index, pointing every vertex
+	 * along the way directly at the root.*/
+	private static int find(int[] parent, int i) {
+		int root = i;
+		while (parent[root] != root) {
+			root = parent[root];
+		}
+		while (parent[i] != root) {
+			int next = parent[i];
+			parent[i] = root;
+			i = next;
+		}
+		return root;
+	}
+
+	/**Joins the trees with the given roots by rank and returns the root that was placed
+	 * beneath the other.*/
+	private static int union(int[] parent, byte[] rank, int rootA, int rootB) {
+		if (rank[rootA] < rank[rootB]) {
+			parent[rootA] = rootB;
+			return rootA;
+		}
+		if (rank[rootA] == rank[rootB]) {
+			rank[rootA]++;
+		}
+		parent[rootB] = rootA;
+		return rootB;
+	}
+
+	/**
+	 * Uses an implementation of Prim's algorithm to build a path among neighboring
+	 * cells by finding a minimum spanning tree, stored implicitly within the grid as the
+	 * walls knocked down. Branches out from the starting cell by adding an edge
+	 * to a random unvisited cell adjacent to one we've visited, called the "frontier." The
+	 * frontier can contain duplicates, so there is higher probability of picking a cell adjacent
+	 * to multiple visited cells.
 	 */
 	public void prim() {
+		prim(true);
+	}
+
+	/**
+	 * Prim's algorithm with a frontier that is maintained incrementally rather than rebuilt
+	 * from every visited vertex on each step. The frontier is an int array with swap-removal
+	 * from a random index, and visited vertices are tracked in a bitset, so each vertex costs
+	 * constant time to add.
+	 * @param weightDuplicates when true, the frontier holds one entry per edge from a visited
+	 *        vertex to an unvisited one, so a vertex adjacent to several visited vertices is
+	 *        proportionally more likely to be picked (the texture of {@link #prim()}). Entries
+	 *        whose vertex was visited through another edge are discarded when drawn. When false,
+	 *        every frontier vertex is equally likely and is joined to a random visited neighbor.
+	 */
+	public void prim(boolean weightDuplicates) {
 		if (!isBuilt) {
-			Set<Vertex> visited = new HashSet<Vertex>(vertices.size());
-			visited.add(start);
-			
-			while (visited.size() < vertices.size()) {				
-				setChanged();
-				notifyObservers();				
-				
-				ArrayList<Vertex> frontier = new ArrayList<Vertex>();	//All unvisited neighbors of visited Vertices (includes duplicates)
-				for (Vertex v : visited) {
-					for (Vertex neighbor : v.neighbors) {
-						if (!visited.contains(neighbor)) {
-							frontier.add(neighbor);
-						}
+			long begin = System.nanoTime();
+			long edges = 0;
+			int peakFrontier = 0;
+			int size = grid.size();
+			BitSet visited = new BitSet(size);
+			BitSet inFrontier = new BitSet(weightDuplicates ? 0 : size);
+			int[] frontier = new int[weightDuplicates ? edgeCount() : size];	//Edge codes or vertex indices
+			int frontierSize = 0;
+			int[] adjacent = new int[4];
+			int current = start;
+			int visitedCount = 0;
+
+			while (current >= 0) {
+				visited.set(current);
+				visitedCount++;
+				int count = grid.neighbors(current, adjacent);
+				edges += count;
+				for (int i = 0; i < count; i++) {										//Grow frontier by the new vertex's neighbors
+					int neighbor = adjacent[i];
+					if (visited.get(neighbor)) {
+						continue;
+					}
+					if (weightDuplicates) {
+						frontier[frontierSize++] = edgeCode(current, neighbor);
+					} else if (!inFrontier.get(neighbor)) {
+						inFrontier.set(neighbor);
+						frontier[frontierSize++] = neighbor;
 					}
 				}
-				
-				Vertex randV = frontier.get(RANDY.nextInt(frontier.size()));
-				ArrayList<Vertex> parents = new ArrayList<Vertex>();
-				for (Vertex v: randV.neighbors) {
-					if (visited.contains(v)) {
-						parents.add(v);
+				peakFrontier = Math.max(peakFrontier, frontierSize);
+				current = -1;
+				if (visitedCount < size) {
+					notifyStep();
+				}
+
+				int parent = -1;
+				while (current < 0 && visitedCount < size) {
+					int pick = randy.nextInt(frontierSize);
+					edges++;
+					int entry = frontier[pick];
+					frontier[pick] = frontier[--frontierSize];							//O(1) swap-remove
+					if (weightDuplicates) {
+						int a = entry >>> 1;
+						int b = (entry & 1) == 0 ? a + 1 : a + numColumns;
+						if (!visited.get(a)) {
+							current = a;
+							parent = b;
+						} else if (!visited.get(b)) {
+							current = b;
+							parent = a;
+						}																//Otherwise both visited; stale entry
+					} else {
+						current = entry;
+						int parents = 0;
+						count = grid.neighbors(current, adjacent);
+						for (int i = 0; i < count; i++) {
+							if (visited.get(adjacent[i])) {
+								adjacent[parents++] = adjacent[i];
+							}
+						}
+						parent = adjacent[randy.nextInt(parents)];						//Randomly pick one of the visited parents
 					}
 				}
-				
-				Vertex randParent = parents.get(RANDY.nextInt(parents.size()));	//Randomly pick one of the visited parents
-				addEdge(randParent, randV);
-				visited.add(randV);
-				mazeArr[randV.row][randV.column] = VISITED;				
+				if (current >= 0) {
+					addEdge(parent, current);
+					mark(current, VISITED);
+				}
 			}
-			setChanged();
-			notifyObservers();
-						
-			isBuilt = true;
-			purgeVisitedMarkings();
+			notifyStep();
+			if (recordsStats) {
+				MazeStats.get().recordPrimFrontier(peakFrontier);
+				MazeStats.get().recordGeneration(visitedCount, edges, System.nanoTime() - begin);
 			}
+
+			finishBuild(weightDuplicates ? Algorithm.PRIM : null);
+		}
 	}
-	
 
-	
-	/**Removes the visited markings from mazeArr.*/
+	/**Returns the number of edges in the lattice of cells.*/
+	private int edgeCount() {
+		return Math.max(0, numRows * (numColumns - 1) + (numRows - 1) * numColumns);
+	}
+
+	/**Returns the code of the lattice edge between two adjacent vertex indices: twice the
+	 * index of the upper/left vertex, plus one if the edge leads south from it.*/
+	private int edgeCode(int a, int b) {
+		int first = Math.min(a, b);
+		return first * 2 + (Math.abs(a - b) == numColumns ? 1 : 0);
+	}
+
+	/**Marks this Maze as built from its seed by the given algorithm, or null if the
+	 * algorithm and seed alone do not repeat the build, and removes the visited markings.*/
+	private void finishBuild(Algorithm algorithm) {
+		builtWith = algorithm;
+		buildSeed = seed;
+		isBuilt = true;
+		purgeVisitedMarkings();
+	}
+
+	/**Removes the visited markings from the grid.*/
 	private void purgeVisitedMarkings() {
-		for (int m = 0; m < mazeArr.length; m++) {
-			for (int n = 0; n < mazeArr[m].length; n++) {	
-				if (mazeArr[m][n] == VISITED) {
-					mazeArr[m][n] = ' ';
-				} else {
-					mazeArr[m][n] = mazeArr[m][n];
-				}
-			}	
+		grid.clearVisited();
+		for (MazeListener listener : listeners) {
+			listener.buildFinished();
+		}
+	}
+
+	/**Removes the markings of any previous path from the grid.*/
+	private void clearPathMarkings() {
+		grid.clearPathMarks();
+		for (MazeListener listener : listeners) {
+			listener.pathCleared();
 		}
 	}
 
-	/**Adds each of the given vertices to the path neighbors list of the other, while 
-	 * tearing down the wall between them in the maze array.*/
-	private void addEdge(Vertex a, Vertex b) {
-		a.addPathTo(b);
-		b.addPathTo(a);
-		
-		int row = (a.row + b.row) / 2;			//Wall is at row and column indices between a and b
-		int column = (a.column + b.column) / 2;
-		mazeArr[row][column] = ' ';				//"paves" a path between the vertices in the mazeArr
+	/**Tears down the wall between the given adjacent cells, joining them by a path.*/
+	private void addEdge(int a, int b) {
+		grid.openWall(a, b);
+		fireWallRemoved(a, b);
+	}
+
+	/**Tells the listeners that the wall between the given adjacent cells has come down.*/
+	private void fireWallRemoved(int a, int b) {
+		for (MazeListener listener : listeners) {
+			listener.wallRemoved(a, b);
+		}
+	}
 
-	}	
+	/**Marks the given cell with {@value #VISITED}, {@value #TENTATIVE} or {@link #PATH}.*/
+	private void mark(int cell, char marker) {
+		grid.cellMarked(cell, marker);
+		for (MazeListener listener : listeners) {
+			listener.cellMarked(cell, marker);
+		}
+	}
+
+	/**Notifies Observers that a step has been taken, skipping the work of doing so when
+	 * none are registered, and times them.*/
+	private void notifyStep() {
+		if (countObservers() > 0) {
+			long begin = System.nanoTime();
+			setChanged();
+			notifyObservers();
+			MazeStats.get().recordNotification(System.nanoTime() - begin);
+		}
+	}
 
 	/**
 	 * Solve the Maze using depth first search, which navigates a path until
 	 * reaching a dead end, then backtracks until it can try a different path.
-	 * Remembers paths that didn't work and doesn't revisit them.
+	 * Remembers paths that didn't work and doesn't revisit them. The path is held
+	 * on an int stack and visited cells in a bitset, both reused from one solve
+	 * to the next.
 	 */
-	public void depthFirstSearch() {	
-		
+	public void depthFirstSearch() {
 		if (isBuilt) {
-			pathArr = new char[mazeArr.length][mazeArr[0].length];			
-			Set<Vertex> visited = new HashSet<Vertex>();
-			LinkedList<Vertex> pathStack = new LinkedList<Vertex>();					//Steps from start to finish
-			visited.add(start);
-			pathStack.push(start);
-			pathArr[start.row][start.column] = TENTATIVE;
-			setChanged();
-			notifyObservers();
-			
-			while (pathStack.peek() != exit) { 											//Navigate until the end is visited
-				ArrayList<Vertex> neighbors = pathStack.peek().getPathNeighbors(); 	
-				neighbors.removeAll(visited);											//Holds adjacent unvisited vertices
-				if (!neighbors.isEmpty()) {
-					Vertex randNeighbor = neighbors.get(RANDY.nextInt(neighbors.size()));
-					visited.add(randNeighbor);
-					pathStack.push(randNeighbor);
-					pathArr[randNeighbor.row][randNeighbor.column] = TENTATIVE;					
-					setChanged();
-					notifyObservers();					
-				} else {
-					pathStack.pop();													//Dead end; backtrack one step
-				}
-			}
-			while (!pathStack.isEmpty()) {
-				Vertex v = pathStack.removeLast();										//Ordered exit to start, so step
-				pathArr[v.row][v.column] = PATH;										//through backwards
-				setChanged();
-				notifyObservers();				
-			}	
+			clearPathMarkings();
+			Solvers.depthFirstSearch(grid, getSearchBuffers(), randy, solveSteps);
 		}
 	}
-	
+
 	/**
-	 *Solves the Maze using breadth first search, finding the shortest solution. 
-	 *Makes a queue of vertices to visit starting with all adjacent to the entrance.
+	 *Solves the Maze using breadth first search, finding the shortest solution.
+	 *Makes a queue of cells to visit starting with all adjacent to the entrance.
 	 *Then goes through each of those in the order enqueued, tacking their unvisited
 	 *neighbors to the end of the queue. This is repeated until the exit is reached.
-	 *As we go, the child-parent relationship is stored in a hashmap, where a parent is
-	 *the first adjacent Vertex from which we arrived to the child. Thus the parent stored 
-	 *represents the shortest path to backtrack to the start. By backtracking the parent 
-	 *from the exit vertex all the way to the start vertex, we then get the shortest path.*/
+	 *As we go, the child-parent relationship is stored in an int array, where a parent is
+	 *the first adjacent cell from which we arrived to the child. Thus the parent stored
+	 *represents the shortest path to backtrack to the start. By backtracking the parent
+	 *from the exit cell all the way to the start cell, we then get the shortest path.
+	 *The queue is an int ring buffer and visited cells are kept in a bitset, all reused
+	 *from one solve to the next, so solving allocates nothing per cell.*/
 	public void breadthFirstSearch() {
-		if (isBuilt) {			
-			pathArr = new char[mazeArr.length][mazeArr[0].length];	
-
-			LinkedList<Vertex> levelQueue = new LinkedList<Vertex>();			//Holds unchecked, visited vertices in level-order
-			
-			HashMap<Vertex, Vertex> visitedFrom = new HashMap<Vertex, Vertex>();//Stores visited child-parent pairs.
-			levelQueue.add(start);
-			visitedFrom.put(start, null);
-						
-			while(!visitedFrom.containsKey(exit)) {								//Navigate by level until exit is reached
-				Vertex parent = levelQueue.poll();
-				pathArr[parent.row][parent.column] = TENTATIVE;
-				setChanged();
-				notifyObservers();
-				ArrayList<Vertex> unvisitedChildren = parent.getPathNeighbors();
-				unvisitedChildren.removeAll(visitedFrom.keySet());
-				for (Vertex v : unvisitedChildren) {
-					levelQueue.add(v);
-					visitedFrom.put(v, parent);
-				}
-			}
-			
-			pathArr[exit.row][exit.column] = TENTATIVE;
-			setChanged();
-			notifyObservers();
-			
-			
-			LinkedList<Vertex> pathQueue = new LinkedList<Vertex>();
-			pathQueue.offer(exit);
-			while(pathQueue.peekLast() != start) {
-				pathQueue.offer(visitedFrom.get(pathQueue.peekLast()));
-			}
-			
-			while (!pathQueue.isEmpty()) {
-				Vertex v = pathQueue.removeLast();
-				pathArr[v.row][v.column] = PATH;				
-				setChanged();
-				notifyObservers();
-				
-			}
-			
+		if (isBuilt) {
+			clearPathMarkings();
+			Solvers.breadthFirstSearch(grid, getSearchBuffers(), solveSteps);
 		}
 	}
-	
-	
+
+	/**
+	 * Solves this Maze with the given algorithm.
+	 * @param solver the algorithm to solve with
+	 */
+	public void solve(Solver solver) {
+		if (solver == Solver.DEAD_END_FILLING) {
+			fillDeadEnds();															//Needs no search buffers
+		} else if (isBuilt) {
+			clearPathMarkings();
+			Solvers.solve(solver, grid, getSearchBuffers(), randy, solveSteps);
+		}
+	}
+
+	/**
+	 * Solves the Maze by dead-end filling: dead ends are filled until only the path from
+	 * the entrance to the exit is left. Works on rows of the Maze packed 64 cells to a
+	 * long, in bands spread over the common ForkJoinPool, and makes no search, so it is
+	 * much faster than the other solvers on a large Maze. The cells of the path are marked
+	 * {@link #PATH} in order of index rather than along the path, with no steps tried
+	 * before them.
+	 * @return the indices of the cells of the path, or no cells if this Maze has not been
+	 *         built
+	 */
+	public BitSet fillDeadEnds() {
+		if (!isBuilt) {
+			return new BitSet();
+		}
+		clearPathMarkings();
+		BitSet path = Solvers.deadEndFilling(grid);
+		Solvers.markPath(path, solveSteps);
+		return path;
+	}
+
+	/**
+	 * Solves the Maze using A* search, finding the shortest solution. Like breadth first
+	 * search, but the cells waiting to be explored are kept in a binary heap ordered by
+	 * the length of the path to each plus its Manhattan distance from the exit, so the
+	 * search heads toward the exit and leaves much of a large Maze unvisited. The heap
+	 * holds cell indices in an int array reused from one solve to the next.
+	 */
+	public void aStar() {
+		if (isBuilt) {
+			clearPathMarkings();
+			Solvers.aStar(grid, getSearchBuffers(), solveSteps);
+		}
+	}
+
+	/**
+	 * Solves the Maze using breadth first search from the entrance and the exit at the
+	 * same time, expanding whichever search has fewer cells waiting a level at a time,
+	 * until the two meet. Each covers about half of the solution, so far fewer cells are
+	 * visited than by {@link #breadthFirstSearch()} on a large Maze.
+	 */
+	public void bidirectionalSearch() {
+		if (isBuilt) {
+			clearPathMarkings();
+			Solvers.bidirectionalSearch(grid, getSearchBuffers(), solveSteps);
+		}
+	}
+
+	/**
+	 * Measures the texture of this Maze: its dead ends, junctions and corridors, the length
+	 * of its solution and the longest path between any two of its cells.
+	 * @return the metrics of this Maze as it is now
+	 */
+	public MazeMetrics analyze() {
+		return MazeMetrics.of(grid);
+	}
+
+	/**
+	 * Searches this Maze once from the given cell, keeping the shortest path from it to
+	 * every other cell, so paths to any number of targets, such as several exits or
+	 * checkpoints, can be read off without searching again.
+	 * @param source the cell the paths start from
+	 * @return the paths from the source
+	 * @throws IllegalStateException if this Maze has not been built
+	 * @throws IllegalArgumentException if the source is not a cell of this Maze
+	 */
+	public PathTree solveFrom(int source) {
+		if (!isBuilt) {
+			throw new IllegalStateException("Only a built Maze can be solved");
+		}
+		return PathTree.from(grid, source);
+	}
+
+	/**
+	 * Finds the shortest path between each given pair of cells of this Maze, searching
+	 * once from each distinct source, however many targets share it.
+	 * @param sources the cell each path starts from
+	 * @param targets the cell each path ends at, one for each source
+	 * @return the cells of each path, in order from its source to its target
+	 * @throws IllegalStateException if this Maze has not been built
+	 * @throws IllegalArgumentException if there are not as many sources as targets, or
+	 *         they are not cells of this Maze
+	 */
+	public int[][] solveAll(int[] sources, int[] targets) {
+		if (!isBuilt) {
+			throw new IllegalStateException("Only a built Maze can be solved");
+		}
+		return PathTree.solveAll(grid, sources, targets);
+	}
+
+	/**
+	 * Returns an index of the paths between the cells of this Maze, which gives the length
+	 * of the path between any two cells in constant time and the path itself without
+	 * searching. The index is built the first time it is asked for and kept, since a
+	 * built Maze does not change.
+	 * @return the index
+	 * @throws IllegalStateException if this Maze has not been built, or has no cells
+	 */
+	public PathIndex getPathIndex() {
+		if (!isBuilt || grid.size() == 0) {
+			throw new IllegalStateException("Only a built Maze with cells can be indexed");
+		}
+		if (pathIndex == null) {
+			pathIndex = new PathIndex(grid);
+		}
+		return pathIndex;
+	}
+
+	/**Returns the buffers for searching this Maze, creating them on the first solve.*/
+	private SearchBuffers getSearchBuffers() {
+		if (searchBuffers == null) {
+			searchBuffers = new SearchBuffers(grid.size());
+		}
+		return searchBuffers;
+	}
+
+
 	/**Displays the maze to console for debugging. If the maze has been solved, the solution path is printed.*/
 	public void display() {
+			char[][] mazeArr = getMazeArr();
+			char[][] pathArr = getPathArr();
 			StringBuilder sb = new StringBuilder();
 			sb.append("\t");
 			for (int c = 0; c < pathArr[0].length; c++) {
@@ -426,95 +916,73 @@ public class Maze extends Observable {
 					sb.append('\n');
 				}
 				sb.append(m + ")\t"); //row for debug
-				for (int n = 0; n < pathArr[m].length; n++) {	
+				for (int n = 0; n < pathArr[m].length; n++) {
 					char cell = pathArr[m][n];
 					if (cell == 0) {
 						cell = mazeArr[m][n];
 					}
 						sb.append(cell + " ");
-				}	
+				}
 			}
 			System.out.println(sb.toString());
 			System.out.println();
 	}
-	
+
 	/**
-	 * Returns a representation of the Maze as a 2D array. If it is being built, {@value #VISITED}
-	 * is used to mark a cell where a wall has been knocked down to form a path.
+	 * Returns a representation of the Maze as a 2D array, rendered from its grid. If it is
+	 * being built, {@value #VISITED} is used to mark a cell where a wall has been knocked
+	 * down to form a path.
 	 */
 	public char[][] getMazeArr() {
-		char[][] copy = new char[mazeArr.length][mazeArr[0].length];
-		for (int m = 0; m < mazeArr.length; m++) {
-			for (int n = 0; n < mazeArr[m].length; n++) {	
-				copy[m][n] = mazeArr[m][n];
-			}	
-		}
-		return copy;
-	}
-	
-	/** 
-	 * Returns a representation of the path through this Maze as a 2D array. 
-	 * The definitive steps in the path are marked by {@value #PATH}, while
+		return grid.renderMaze();
+	}
+
+	/**
+	 * Returns a representation of the path through this Maze as a 2D array, rendered from
+	 * its grid. The definitive steps in the path are marked by {@value #PATH}, while
 	 * steps being tested out are marked by {@value #TENTATIVE}.
 	 */
 	public char[][] getPathArr() {
-		char[][] copy = new char[pathArr.length][pathArr[0].length];
-		for (int m = 0; m < pathArr.length; m++) {
-			for (int n = 0; n < pathArr[m].length; n++) {
-				copy[m][n] = pathArr[m][n];
-			}
-		}
-		return copy;		
+		return grid.renderPath();
 	}
 
-
 	/**
-	 * Represents a graph vertex using adjacency lists. It has two adjacency lists: the
-	 * first represents its neighbors at the start of the Maze when it is just a lattice.
-	 * The second represents its neighbors in the minimal spanning tree found by one of the
-	 * selected algorithms.
+	 * Saves this Maze to a binary file that {@link MazeFile#open(Path)} maps back into
+	 * memory. Only its walls, doorways, and the seed and algorithm it was built from are
+	 * saved, not its markings.
+	 * @param path the file to save to, replaced if it exists
+	 * @throws IOException if the file cannot be written
+	 * @throws IllegalStateException if this Maze has not been built
 	 */
-	private class Vertex {
-
-		/**A list of adjacent vertices*/
-		private final ArrayList<Vertex> neighbors;
-
-		/**A list of adjacent vertices who share a path with this one*/
-		private final ArrayList<Vertex> pathNeighbors;
-
-		/**The row of this Maze where this Vertex is located.*/
-		final int row;
-		
-		/**The column of this Maze where this Vertex is located.*/
-		final int column;
-
-		private Vertex(int r, int c) {
-			row = r;
-			column = c;
-			neighbors = new ArrayList<Vertex>();
-			pathNeighbors = new ArrayList<Vertex>();
-		}
-
-		/**Add a Vertex to this Vertex's adjacency list*/
-		void addNeighbor(Vertex v) {
-			if (!neighbors.contains(v)) { 
-				neighbors.add(v);
-			}
+	public void save(Path path) throws IOException {
+		if (!isBuilt) {
+			throw new IllegalStateException("Only a built Maze can be saved");
 		}
+		MazeFile.write(grid, getBuildSeed(), builtWith, path);
+	}
 
-		/**Adds the given vertex to this vertex's list of neighbors not divided by a wall.
-		 *if the given vertex is not in this vertex's adjacency list, it will not be added.*/
-		void addPathTo(Vertex v) {
-			if (neighbors.contains(v) && !pathNeighbors.contains(v)) {
-				pathNeighbors.add(v);
+	/**
+	 * Writes the walls of this Maze as lines of {@value #WALL} and space characters, the
+	 * same as the rows of {@link #getMazeArr()}, one line at a time so the whole rendering
+	 * is never held in memory. If the Maze has been solved, the cells of the path are
+	 * marked {@value #PATH}; steps that were only tried are not written.
+	 * @param out the writer to write the lines to
+	 * @throws IOException if the writer fails
+	 */
+	public void write(Writer out) throws IOException {
+		char[] line = new char[(numColumns * 2) + 1];
+		for (int l = 0; l <= numRows * 2; l++) {
+			grid.renderRow(l, line);
+			if ((l & 1) == 1) {
+				for (int c = 0, i = (l / 2) * numColumns; c < numColumns; c++, i++) {
+					if (grid.getPathMark(i) == PATH) {
+						line[c * 2 + 1] = PATH;
+					}
+				}
 			}
+			out.write(line);
+			out.write('\n');
 		}
-
-		/**Returns a clone of the list of this Vertex's neighboring Vertices connected by a path.*/
-		ArrayList<Vertex> getPathNeighbors() {		
-			return (ArrayList<Vertex>) pathNeighbors.clone();
-		}
-
 	}
 
 
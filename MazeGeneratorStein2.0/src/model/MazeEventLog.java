@@ -0,0 +1,116 @@
+/*	Tabitha Stein 	*
+ *	Maze Generator	*/
+
+package model;
+
+import java.util.Arrays;
+
+/**
+ * A MazeListener that records the changes made to a Maze in a growable int array, so they
+ * can be replayed in part or in full to any other listener. Replaying a prefix of the log
+ * onto the grid from {@link Maze#createBlankGrid()} reconstructs the Maze as it was after
+ * that many changes, without any snapshot having been taken while it was built or solved.
+ *
+ * @author Tabitha Stein
+ * @version 2.0
+ */
+public final class MazeEventLog implements MazeListener {
+
+	/**Code for a {@link MazeListener#wallRemoved(int, int)} event.*/
+	private static final int WALL_REMOVED = 0;
+
+	/**Code for a {@link MazeListener#cellMarked(int, char)} event.*/
+	private static final int CELL_MARKED = 1;
+
+	/**Code for a {@link MazeListener#buildFinished()} event.*/
+	private static final int BUILD_FINISHED = 2;
+
+	/**Code for a {@link MazeListener#pathCleared()} event.*/
+	private static final int PATH_CLEARED = 3;
+
+	/**Three ints per event: its code and its two arguments.*/
+	private int[] events;
+
+	/**The number of events recorded.*/
+	private int size;
+
+	/**
+	 * Creates an empty log.
+	 */
+	public MazeEventLog() {
+		events = new int[3 * 64];
+	}
+
+	@Override
+	public void wallRemoved(int cellA, int cellB) {
+		record(WALL_REMOVED, cellA, cellB);
+	}
+
+	@Override
+	public void cellMarked(int cell, char marker) {
+		record(CELL_MARKED, cell, marker);
+	}
+
+	@Override
+	public void buildFinished() {
+		record(BUILD_FINISHED, 0, 0);
+	}
+
+	@Override
+	public void pathCleared() {
+		record(PATH_CLEARED, 0, 0);
+	}
+
+	/**Appends an event, doubling the array when it is full.*/
+	private void record(int code, int a, int b) {
+		if (size * 3 == events.length) {
+			events = Arrays.copyOf(events, events.length * 2);
+		}
+		int i = size * 3;
+		events[i] = code;
+		events[i + 1] = a;
+		events[i + 2] = b;
+		size++;
+	}
+
+	/**
+	 * Returns the number of events recorded.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Passes the recorded events from index from (inclusive) to index to (exclusive) to the
+	 * given listener, in the order they were recorded.
+	 * @param listener the listener to replay the events to
+	 * @param from the index of the first event to replay
+	 * @param to the index after the last event to replay
+	 */
+	public void replay(MazeListener listener, int from, int to) {
+		if (from < 0 || to > size || from > to) {
+			throw new IndexOutOfBoundsException("from: " + from + ", to: " + to + ", size: " + size);
+		}
+		for (int e = from; e < to; e++) {
+			int i = e * 3;
+			switch (events[i]) {
+				case WALL_REMOVED	:	listener.wallRemoved(events[i + 1], events[i + 2]);
+										break;
+				case CELL_MARKED	:	listener.cellMarked(events[i + 1], (char) events[i + 2]);
+										break;
+				case BUILD_FINISHED	:	listener.buildFinished();
+										break;
+				default				:	listener.pathCleared();
+										break;
+			}
+		}
+	}
+
+	/**
+	 * Discards every recorded event.
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+}
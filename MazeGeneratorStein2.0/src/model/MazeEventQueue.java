@@ -0,0 +1,176 @@
+/*	Tabitha Stein 	*
+ *	Maze Generator	*/
+
+package model;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * A MazeListener that passes the changes made to a Maze on one thread to another thread
+ * through a bounded ring of ints, three per event as in a {@link MazeEventLog}. An
+ * algorithm building or solving the Maze on a worker thread waits while the ring is full,
+ * so it runs only as far ahead of whoever plays its changes back as the ring holds, and the
+ * memory used does not depend on the size of the Maze. Either side can stop the other: the
+ * producer closes the queue when it is done, and the consumer cancels it to abandon the
+ * algorithm, which then fails with a CancellationException at its next change.
+ *
+ * @author Tabitha Stein
+ * @version 2.0
+ */
+public final class MazeEventQueue implements MazeListener {
+
+	/**Code for a {@link MazeListener#wallRemoved(int, int)} event.*/
+	private static final int WALL_REMOVED = 0;
+
+	/**Code for a {@link MazeListener#cellMarked(int, char)} event.*/
+	private static final int CELL_MARKED = 1;
+
+	/**Code for a {@link MazeListener#buildFinished()} event.*/
+	private static final int BUILD_FINISHED = 2;
+
+	/**Code for a {@link MazeListener#pathCleared()} event.*/
+	private static final int PATH_CLEARED = 3;
+
+	/**Three ints per event: its code and its two arguments.*/
+	private final int[] events;
+
+	/**The number of events the ring holds.*/
+	private final int capacity;
+
+	/**The index of the oldest event waiting to be taken.*/
+	private int head;
+
+	/**The number of events waiting to be taken.*/
+	private int size;
+
+	/**Set when the producer will add no more events.*/
+	private boolean closed;
+
+	/**Set when the consumer will take no more events.*/
+	private volatile boolean cancelled;
+
+	/**
+	 * Creates an empty queue.
+	 * @param capacity the number of events that can wait to be taken before the producer
+	 *        has to wait
+	 */
+	public MazeEventQueue(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+		}
+		this.capacity = capacity;
+		events = new int[3 * capacity];
+	}
+
+	@Override
+	public void wallRemoved(int cellA, int cellB) {
+		put(WALL_REMOVED, cellA, cellB);
+	}
+
+	@Override
+	public void cellMarked(int cell, char marker) {
+		put(CELL_MARKED, cell, marker);
+	}
+
+	@Override
+	public void buildFinished() {
+		put(BUILD_FINISHED, 0, 0);
+	}
+
+	@Override
+	public void pathCleared() {
+		put(PATH_CLEARED, 0, 0);
+	}
+
+	/**Appends an event, waiting while the ring is full.
+	 * @throws CancellationException if the queue is cancelled or the thread interrupted*/
+	private synchronized void put(int code, int a, int b) {
+		while (size == capacity && !cancelled) {
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new CancellationException("Interrupted");
+			}
+		}
+		if (cancelled) {
+			throw new CancellationException();
+		}
+		int i = ((head + size) % capacity) * 3;
+		events[i] = code;
+		events[i + 1] = a;
+		events[i + 2] = b;
+		size++;
+	}
+
+	/**
+	 * Passes up to max of the waiting events to the given listener, oldest first, without
+	 * waiting for more to arrive.
+	 * @param listener the listener to pass the events to
+	 * @param max the largest number of events to pass
+	 * @return the number of events passed
+	 */
+	public int drain(MazeListener listener, int max) {
+		int taken = 0;
+		int code = 0, a = 0, b = 0;
+		while (taken < max) {
+			synchronized (this) {
+				if (size == 0) {
+					break;
+				}
+				int i = head * 3;
+				code = events[i];
+				a = events[i + 1];
+				b = events[i + 2];
+				head = (head + 1) % capacity;
+				if (size-- == capacity) {
+					notifyAll();													//Wake the producer
+				}
+			}
+			switch (code) {
+				case WALL_REMOVED	:	listener.wallRemoved(a, b);
+										break;
+				case CELL_MARKED	:	listener.cellMarked(a, (char) b);
+										break;
+				case BUILD_FINISHED	:	listener.buildFinished();
+										break;
+				default				:	listener.pathCleared();
+										break;
+			}
+			taken++;
+		}
+		return taken;
+	}
+
+	/**
+	 * Marks the end of the events; called by the producer when it is done.
+	 */
+	public synchronized void close() {
+		closed = true;
+	}
+
+	/**
+	 * Returns true if the producer is done and every event has been taken.
+	 */
+	public synchronized boolean isFinished() {
+		return closed && size == 0;
+	}
+
+	/**
+	 * Abandons the events, waiting or still to come, so the producer fails at its next one
+	 * instead of waiting for room.
+	 */
+	public synchronized void cancel() {
+		cancelled = true;
+		size = 0;
+		notifyAll();
+	}
+
+	/**
+	 * Returns true if the queue has been cancelled.
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+}
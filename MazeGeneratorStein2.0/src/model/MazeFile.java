@@ -0,0 +1,306 @@
+/*	Tabitha Stein 	*
+ *	Maze Generator	*/
+
+package model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.SplittableRandom;
+
+/**
+ * A maze saved in a compact binary file and mapped straight back into memory. The file is
+ * a header holding the dimensions, seed, doorways and their markers and the generating
+ * algorithm, followed by the passage bits exactly as a MazeGrid keeps them, two bits per
+ * cell in little-endian longs.
+ * Opening a file maps it rather than reading it, checking only the header and the cells
+ * along the right and bottom edges, which must not open out of the maze, and lookups and
+ * the solvers read the mapped passages directly; pages are only read from disk as they
+ * are touched.
+ * <p>
+ * Header layout, in bytes, little-endian:
+ * <pre>
+ *  0  int   magic number, "MAZE"
+ *  4  int   format version
+ *  8  int   rows
+ * 12  int   columns
+ * 16  long  seed
+ * 24  int   entrance cell, or -1
+ * 28  int   exit cell, or -1
+ * 32  char  entrance marker
+ * 34  char  exit marker
+ * 36  int   algorithm built with, its ordinal plus one, or 0 if unknown
+ * 40  long[] passages
+ * </pre>
+ *
+ * @author Tabitha Stein
+ * @version 2.0
+ */
+public final class MazeFile implements CellGraph {
+
+	/**The first four bytes of every maze file, "MAZE" in ASCII.*/
+	private static final int MAGIC = 0x455A414D;
+
+	/**The version of the format written.*/
+	private static final int VERSION = 1;
+
+	/**The number of bytes before the passages, a multiple of 8 to keep them aligned.*/
+	private static final int HEADER_BYTES = 40;
+
+	/**The number of rows of cells.*/
+	private final int numRows;
+
+	/**The number of columns of cells.*/
+	private final int numColumns;
+
+	/**The seed the maze was built from.*/
+	private final long seed;
+
+	/**The algorithm the maze was built with, or null if it is not known.*/
+	private final Maze.Algorithm algorithm;
+
+	/**The index of the entrance cell, or -1 if there are no cells.*/
+	private final int start;
+
+	/**The index of the exit cell, or -1 if there are no cells.*/
+	private final int exit;
+
+	/**The character to mark the entrance to the maze.*/
+	private final char entranceMarker;
+
+	/**The character to mark the exit to the maze.*/
+	private final char exitMarker;
+
+	/**The mapped passage bits, laid out as in MazeGrid.*/
+	private final LongBuffer passages;
+
+	/**Working storage for the solving algorithms, created on the first solve.*/
+	private SearchBuffers searchBuffers;
+
+	private MazeFile(ByteBuffer header, LongBuffer thePassages) {
+		numRows = header.getInt(8);
+		numColumns = header.getInt(12);
+		seed = header.getLong(16);
+		start = header.getInt(24);
+		exit = header.getInt(28);
+		entranceMarker = header.getChar(32);
+		exitMarker = header.getChar(34);
+		algorithm = header.getInt(36) == 0 ? null : Maze.Algorithm.values()[header.getInt(36) - 1];
+		passages = thePassages;
+	}
+
+	/**
+	 * Writes the given grid to a maze file through a mapping of the file.
+	 * @param grid the grid to write
+	 * @param seed the seed the grid was built from
+	 * @param algorithm the algorithm the grid was built with, or null if it is not known
+	 * @param path the file to write, replaced if it exists
+	 * @throws IOException if the file cannot be written
+	 */
+	static void write(MazeGrid grid, long seed, Maze.Algorithm algorithm, Path path) throws IOException {
+		int words = grid.passageWords();
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+					HEADER_BYTES + (long) words * Long.BYTES);
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			buffer.putInt(0, MAGIC).putInt(4, VERSION);
+			buffer.putInt(8, grid.rows()).putInt(12, grid.columns());
+			buffer.putLong(16, seed);
+			buffer.putInt(24, grid.getStart()).putInt(28, grid.getExit());
+			buffer.putChar(32, grid.getEntranceMarker()).putChar(34, grid.getExitMarker());
+			buffer.putInt(36, algorithm == null ? 0 : algorithm.ordinal() + 1);
+			for (int w = 0; w < words; w++) {
+				buffer.putLong(HEADER_BYTES + w * Long.BYTES, grid.getPassageWord(w));
+			}
+			buffer.force();
+		}
+	}
+
+	/**
+	 * Maps a maze file written by {@link Maze#save(Path)} into memory. The mapping stays
+	 * valid after the file is closed, until the MazeFile is garbage collected.
+	 * @param path the file to open
+	 * @return the mapped maze
+	 * @throws IOException if the file cannot be read or is not a maze file
+	 */
+	public static MazeFile open(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long length = channel.size();
+			if (length < HEADER_BYTES) {
+				throw new IOException("Not a maze file: " + path);
+			}
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			if (buffer.getInt(0) != MAGIC) {
+				throw new IOException("Not a maze file: " + path);
+			}
+			if (buffer.getInt(4) != VERSION) {
+				throw new IOException("Unsupported maze file version " + buffer.getInt(4) + ": " + path);
+			}
+			long cells = (long) buffer.getInt(8) * buffer.getInt(12);
+			long words = (cells * 2 + 63) >>> 6;
+			if (buffer.getInt(8) < 0 || buffer.getInt(12) < 0 || cells > Integer.MAX_VALUE
+					|| length != HEADER_BYTES + words * Long.BYTES
+					|| !isDoor(buffer.getInt(24), cells) || !isDoor(buffer.getInt(28), cells)
+					|| buffer.getInt(36) < 0 || buffer.getInt(36) > Maze.Algorithm.values().length) {
+				throw new IOException("Corrupt maze file: " + path);
+			}
+			buffer.position(HEADER_BYTES);
+			LongBuffer passages = buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+			MazeFile file = new MazeFile(buffer, passages);
+			if (file.opensThroughBorder()) {
+				throw new IOException("Corrupt maze file: " + path);
+			}
+			return file;
+		}
+	}
+
+	/**Returns true if any cell is open to the east from the last column or to the south
+	 * from the last row, out of the maze. Only the cells along those two edges are read.*/
+	private boolean opensThroughBorder() {
+		if (size() == 0) {
+			return false;
+		}
+		for (int i = numColumns - 1; i < size(); i += numColumns) {
+			if (isOpenEast(i)) {
+				return true;
+			}
+		}
+		for (int i = size() - numColumns; i < size(); i++) {
+			if (isOpenSouth(i)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**Returns true if the given entrance or exit is one of the given number of cells, or
+	 * -1 when there are none.*/
+	private static boolean isDoor(int cell, long cells) {
+		return cells == 0 ? cell == -1 : cell >= 0 && cell < cells;
+	}
+
+	@Override
+	public int rows() {
+		return numRows;
+	}
+
+	@Override
+	public int columns() {
+		return numColumns;
+	}
+
+	@Override
+	public int getStart() {
+		return start;
+	}
+
+	@Override
+	public int getExit() {
+		return exit;
+	}
+
+	/**Returns the seed the maze was built from.*/
+	public long getSeed() {
+		return seed;
+	}
+
+	/**Returns the algorithm the maze was built with, or null if it is not known.*/
+	public Maze.Algorithm getAlgorithm() {
+		return algorithm;
+	}
+
+	@Override
+	public char getEntranceMarker() {
+		return entranceMarker;
+	}
+
+	@Override
+	public char getExitMarker() {
+		return exitMarker;
+	}
+
+	@Override
+	public boolean isOpenEast(int i) {
+		return (passages.get(i >>> 5) & (1L << (i << 1))) != 0;
+	}
+
+	@Override
+	public boolean isOpenSouth(int i) {
+		return (passages.get(i >>> 5) & (2L << (i << 1))) != 0;
+	}
+
+	/**Returns the passage bits of the 32 cells stored in the given word of the passages.*/
+	long getPassageWord(int word) {
+		return passages.get(word);
+	}
+
+	/**
+	 * Solves the maze using depth first search against the mapped passages, drawing its
+	 * choices from the maze's seed.
+	 * @param steps told of each cell tried, then of each cell of the path
+	 */
+	public void depthFirstSearch(MazeListener steps) {
+		if (size() > 0) {
+			Solvers.depthFirstSearch(this, getSearchBuffers(), new SplittableRandom(seed), steps);
+		}
+	}
+
+	/**
+	 * Solves the maze using breadth first search against the mapped passages, finding
+	 * the shortest solution.
+	 * @param steps told of each cell dequeued, then of each cell of the path
+	 */
+	public void breadthFirstSearch(MazeListener steps) {
+		if (size() > 0) {
+			Solvers.breadthFirstSearch(this, getSearchBuffers(), steps);
+		}
+	}
+
+	/**
+	 * Solves the maze using A* search against the mapped passages, finding the shortest
+	 * solution.
+	 * @param steps told of each cell taken from the heap, then of each cell of the path
+	 */
+	public void aStar(MazeListener steps) {
+		if (size() > 0) {
+			Solvers.aStar(this, getSearchBuffers(), steps);
+		}
+	}
+
+	/**
+	 * Solves the maze using breadth first search from the entrance and the exit at once
+	 * against the mapped passages.
+	 * @param steps told of each cell dequeued by either side, then of each cell of the path
+	 */
+	public void bidirectionalSearch(MazeListener steps) {
+		if (size() > 0) {
+			Solvers.bidirectionalSearch(this, getSearchBuffers(), steps);
+		}
+	}
+
+	/**
+	 * Finds the cells of the solution by dead-end filling the mapped passages, without
+	 * searching.
+	 * @return the indices of the cells of the path
+	 */
+	public BitSet fillDeadEnds() {
+		return Solvers.deadEndFilling(this);
+	}
+
+	/**Returns the buffers for searching this maze, creating them on the first solve.*/
+	private SearchBuffers getSearchBuffers() {
+		if (searchBuffers == null) {
+			searchBuffers = new SearchBuffers(size());
+		}
+		return searchBuffers;
+	}
+
+}
@@ -0,0 +1,239 @@
+/*	Tabitha Stein 	*
+ *	Maze Generator	*/
+
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Compact storage for the cells of a Maze. Cells are numbered from the top left to the
+ * bottom right, and each cell owns two bits of a long array: one set when the wall on its
+ * east side has been knocked down and one set when the wall on its south side has. The
+ * lattice adjacency between cells is derived arithmetically from their indices, so no
+ * per-cell objects or adjacency lists exist. Markings made while building (visited cells)
+ * and solving (tentative and definitive path steps) are kept alongside, and the char
+ * arrays used for display are rendered from this storage on demand. As a MazeListener, a
+ * grid can follow the changes made to a Maze and so serve as a copy of it.
+ *
+ * @author Tabitha Stein
+ * @version 2.0
+ */
+public final class MazeGrid implements CellGraph, MazeListener {
+
+	/**Code stored in pathMarks for a cell with no marking.*/
+	private static final byte NO_MARK = 0;
+
+	/**Code stored in pathMarks for a cell marked {@value Maze#TENTATIVE}.*/
+	private static final byte TENTATIVE_MARK = 1;
+
+	/**Code stored in pathMarks for a cell marked as part of the path.*/
+	private static final byte PATH_MARK = 2;
+
+	/**The number of cells in the vertical direction.*/
+	private final int numRows;
+
+	/**The number of cells in the horizontal direction.*/
+	private final int numColumns;
+
+	/**Two bits per cell: bit 2i is set when cell i is open to the east, bit 2i + 1 when it
+	 * is open to the south.*/
+	private final long[] passages;
+
+	/**One bit per cell, set while building for cells marked {@value Maze#VISITED}.*/
+	private final long[] visited;
+
+	/**One code per cell for the path markings, allocated the first time a cell is marked.*/
+	private byte[] pathMarks;
+
+	/**The index of the entrance cell, or -1 if there are no cells.*/
+	private final int start;
+
+	/**The index of the exit cell, or -1 if there are no cells.*/
+	private final int exit;
+
+	/**The character to mark the entrance to the maze.*/
+	private final char entranceMarker;
+
+	/**The character to mark the exit to the maze.*/
+	private final char exitMarker;
+
+	/**
+	 * Creates a grid of the given dimensions with every wall standing.
+	 * @param rows the number of rows of cells
+	 * @param columns the number of columns of cells
+	 * @param startCell the index of the entrance cell, or -1 if there is none
+	 * @param exitCell the index of the exit cell, or -1 if there is none
+	 * @param entMark the character for displaying the entrance
+	 * @param exMark the character for displaying the exit
+	 */
+	MazeGrid(int rows, int columns, int startCell, int exitCell, char entMark, char exMark) {
+		numRows = rows;
+		numColumns = columns;
+		long cells = (long) rows * columns;
+		passages = new long[(int) ((cells * 2 + 63) >>> 6)];
+		visited = new long[(int) ((cells + 63) >>> 6)];
+		start = startCell;
+		exit = exitCell;
+		entranceMarker = entMark;
+		exitMarker = exMark;
+	}
+
+	/**Returns a copy of this grid, with its walls and markings as they are now.*/
+	MazeGrid copy() {
+		MazeGrid copy = new MazeGrid(numRows, numColumns, start, exit, entranceMarker, exitMarker);
+		System.arraycopy(passages, 0, copy.passages, 0, passages.length);
+		System.arraycopy(visited, 0, copy.visited, 0, visited.length);
+		copy.pathMarks = pathMarks == null ? null : pathMarks.clone();
+		return copy;
+	}
+
+	@Override
+	public int rows() {
+		return numRows;
+	}
+
+	@Override
+	public int columns() {
+		return numColumns;
+	}
+
+	@Override
+	public int getStart() {
+		return start;
+	}
+
+	@Override
+	public int getExit() {
+		return exit;
+	}
+
+	@Override
+	public char getEntranceMarker() {
+		return entranceMarker;
+	}
+
+	@Override
+	public char getExitMarker() {
+		return exitMarker;
+	}
+
+	@Override
+	public boolean isOpenEast(int i) {
+		return (passages[i >>> 5] & (1L << (i << 1))) != 0;
+	}
+
+	@Override
+	public boolean isOpenSouth(int i) {
+		return (passages[i >>> 5] & (2L << (i << 1))) != 0;
+	}
+
+	/**Knocks down the wall between the adjacent cells a and b.*/
+	void openWall(int a, int b) {
+		int first = Math.min(a, b);
+		long bit = ((long) first << 1) + (Math.abs(a - b) == numColumns ? 1 : 0);
+		passages[(int) (bit >>> 6)] |= 1L << bit;
+	}
+
+	/**Returns the passage bits of the 32 cells stored in the given word of the passages.*/
+	long getPassageWord(int word) {
+		return passages[word];
+	}
+
+	/**Returns the number of words holding the passage bits.*/
+	int passageWords() {
+		return passages.length;
+	}
+
+	/**Replaces the passage bits of the 32 cells stored in the given word of the passages.*/
+	void setPassageWord(int word, long bits) {
+		passages[word] = bits;
+	}
+
+	/**Marks cell i as visited by a generation algorithm.*/
+	void markVisited(int i) {
+		visited[i >>> 6] |= 1L << i;
+	}
+
+	@Override
+	public boolean isVisited(int i) {
+		return (visited[i >>> 6] & (1L << i)) != 0;
+	}
+
+	/**Removes every visited marking.*/
+	void clearVisited() {
+		Arrays.fill(visited, 0L);
+	}
+
+	/**Marks cell i with {@value Maze#TENTATIVE} or {@value Maze#PATH}.*/
+	void markPath(int i, char marker) {
+		if (pathMarks == null) {
+			pathMarks = new byte[size()];
+		}
+		pathMarks[i] = marker == Maze.PATH ? PATH_MARK : TENTATIVE_MARK;
+	}
+
+	@Override
+	public char getPathMark(int i) {
+		byte code = pathMarks == null ? NO_MARK : pathMarks[i];
+		return code == PATH_MARK ? Maze.PATH : code == TENTATIVE_MARK ? Maze.TENTATIVE : 0;
+	}
+
+	/**Removes every path marking.*/
+	void clearPathMarks() {
+		if (pathMarks != null) {
+			Arrays.fill(pathMarks, NO_MARK);
+		}
+	}
+
+	@Override
+	public void wallRemoved(int cellA, int cellB) {
+		openWall(cellA, cellB);
+	}
+
+	@Override
+	public void cellMarked(int cell, char marker) {
+		if (marker == Maze.VISITED) {
+			markVisited(cell);
+		} else {
+			markPath(cell, marker);
+		}
+	}
+
+	@Override
+	public void buildFinished() {
+		clearVisited();
+	}
+
+	@Override
+	public void pathCleared() {
+		clearPathMarks();
+	}
+
+	/**
+	 * Renders the walls of this grid as a 2D array with a row and column of wall characters
+	 * between and around the cells, marking visited cells with {@value Maze#VISITED} and the
+	 * doorways with their markers.
+	 */
+	public char[][] renderMaze() {
+		char[][] arr = new char[(numRows * 2) + 1][(numColumns * 2) + 1];
+		for (int line = 0; line < arr.length; line++) {
+			renderRow(line, arr[line]);
+		}
+		return arr;
+	}
+
+	/**
+	 * Renders the path markings of this grid as a 2D array the same size as the one from
+	 * {@link #renderMaze()}, with 0 wherever a cell is not marked.
+	 */
+	public char[][] renderPath() {
+		char[][] arr = new char[(numRows * 2) + 1][(numColumns * 2) + 1];
+		if (pathMarks != null) {
+			for (int i = 0; i < size(); i++) {
+				arr[(i / numColumns) * 2 + 1][(i % numColumns) * 2 + 1] = getPathMark(i);
+			}
+		}
+		return arr;
+	}
+
+}
@@ -0,0 +1,43 @@
+/*	Tabitha Stein 	*
+ *	Maze Generator	*/
+
+package model;
+
+/**
+ * Receives the changes made to a Maze by its generating and solving algorithms, one delta
+ * at a time. Cells are identified by their index, counting from the top left to the bottom
+ * right, so listeners can apply each change to their own copy of the Maze or record it to
+ * replay later instead of copying the whole Maze at every step.
+ *
+ * @author Tabitha Stein
+ * @version 2.0
+ */
+public interface MazeListener {
+
+	/**
+	 * Called when the wall between two adjacent cells is knocked down.
+	 * @param cellA the index of one cell
+	 * @param cellB the index of the other cell
+	 */
+	void wallRemoved(int cellA, int cellB);
+
+	/**
+	 * Called when a cell is marked by an algorithm.
+	 * @param cell the index of the cell
+	 * @param marker {@value Maze#VISITED} while building, or {@value Maze#TENTATIVE}
+	 *        or {@link Maze#PATH} while solving
+	 */
+	void cellMarked(int cell, char marker);
+
+	/**
+	 * Called when the Maze is finished being built and its {@value Maze#VISITED}
+	 * markings have been removed.
+	 */
+	void buildFinished();
+
+	/**
+	 * Called when a solve begins and the markings of any previous path have been removed.
+	 */
+	void pathCleared();
+
+}
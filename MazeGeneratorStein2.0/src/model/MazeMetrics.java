@@ -0,0 +1,248 @@
+/*	Tabitha Stein 	*
+ *	Maze Generator	*/
+
+package model;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.stream.IntStream;
+
+/**
+ * Measures of the texture of a built maze, for comparing what the generating algorithms
+ * make. A cell's degree is the number of cells it shares a path with: dead ends have one,
+ * junctions three or four, and the cells of a corridor two. Corridors are counted between
+ * cells that are not corridor cells, by the number of passages along them, so a long
+ * winding maze has few, long corridors and a bushy one many short ones.
+ * <p>
+ * The degrees and corridors are found in one pass over the cells, split into chunks that
+ * are analyzed in parallel and merged. A corridor's far end is not known until it has
+ * been walked to, so each corridor is walked from both of its ends, once by the chunk
+ * holding each end, and counted only from its lower end.
+ * The length of the solution and the diameter, the longest path between any two cells, are
+ * then found by two breadth first searches: one from the entrance, which reaches the exit
+ * and the cell farthest from the entrance, and one from that cell, whose farthest cell is
+ * as far as any two cells of a perfect maze are apart.
+ *
+ * @author Tabitha Stein
+ * @version 2.0
+ */
+public final class MazeMetrics {
+
+	/**The number of cells analyzed by one task.*/
+	private static final int CHUNK = 1 << 14;
+
+	/**The number of cells.*/
+	private final int cells;
+
+	/**The number of cells of each degree, from 0 to 4.*/
+	private final long[] degrees;
+
+	/**The number of corridors of each length, by index.*/
+	private final long[] corridorLengths;
+
+	/**The number of passages on the path from the entrance to the exit, or -1 if there is
+	 * none.*/
+	private final int solutionLength;
+
+	/**The number of passages on the longest path between two cells.*/
+	private final int diameter;
+
+	private MazeMetrics(int theCells, long[] theDegrees, long[] theCorridorLengths, int theSolutionLength,
+			int theDiameter) {
+		cells = theCells;
+		degrees = theDegrees;
+		corridorLengths = theCorridorLengths;
+		solutionLength = theSolutionLength;
+		diameter = theDiameter;
+	}
+
+	/**
+	 * Analyzes the given maze.
+	 * @param graph the cells of a built maze
+	 * @return its metrics
+	 */
+	public static MazeMetrics of(CellGraph graph) {
+		int size = graph.size();
+		if (size == 0) {
+			return new MazeMetrics(0, new long[5], new long[0], -1, 0);
+		}
+		Tally tally = IntStream.range(0, (size + CHUNK - 1) / CHUNK).parallel()
+				.mapToObj(chunk -> new Tally().count(graph, chunk * CHUNK, Math.min(size, (chunk + 1) * CHUNK)))
+				.reduce(new Tally(), Tally::merge);
+
+		int[] distance = new int[size];
+		int[] queue = new int[size];
+		int farthest = farthest(graph, graph.getStart(), distance, queue);
+		int solutionLength = distance[graph.getExit()];
+		int diameter = distance[farthest(graph, farthest, distance, queue)];
+		return new MazeMetrics(size, tally.degrees, Arrays.copyOf(tally.corridors, tally.longest + 1),
+				solutionLength, diameter);
+	}
+
+	/**Searches breadth first from the given cell, recording the distance to each cell or
+	 * -1 if it cannot be reached, and returns the cell reached last, which is farthest.*/
+	private static int farthest(CellGraph graph, int source, int[] distance, int[] queue) {
+		Arrays.fill(distance, -1);
+		int[] adjacent = new int[4];
+		int head = 0;
+		int tail = 0;
+		distance[source] = 0;
+		queue[tail++] = source;
+		while (head < tail) {
+			int cell = queue[head++];
+			int count = graph.pathNeighbors(cell, adjacent);
+			for (int i = 0; i < count; i++) {
+				if (distance[adjacent[i]] < 0) {
+					distance[adjacent[i]] = distance[cell] + 1;
+					queue[tail++] = adjacent[i];
+				}
+			}
+		}
+		return queue[tail - 1];
+	}
+
+	/**Returns the number of cells analyzed.*/
+	public int getCells() {
+		return cells;
+	}
+
+	/**Returns the number of cells with one neighbor.*/
+	public long getDeadEnds() {
+		return degrees[1];
+	}
+
+	/**Returns the number of cells with three or four neighbors.*/
+	public long getJunctions() {
+		return degrees[3] + degrees[4];
+	}
+
+	/**
+	 * Returns the number of cells with the given number of neighbors.
+	 * @param degree from 0 to 4
+	 */
+	public long getCellsOfDegree(int degree) {
+		return degrees[degree];
+	}
+
+	/**Returns the number of corridors.*/
+	public long getCorridors() {
+		long corridors = 0;
+		for (long count : corridorLengths) {
+			corridors += count;
+		}
+		return corridors;
+	}
+
+	/**
+	 * Returns the number of corridors of each length: element i is the number with i
+	 * passages, up to the longest corridor.
+	 */
+	public long[] getCorridorLengths() {
+		return corridorLengths.clone();
+	}
+
+	/**Returns the mean number of passages along a corridor, or 0 if there are none.*/
+	public double getMeanCorridorLength() {
+		long corridors = 0;
+		long passages = 0;
+		for (int length = 0; length < corridorLengths.length; length++) {
+			corridors += corridorLengths[length];
+			passages += length * corridorLengths[length];
+		}
+		return corridors == 0 ? 0 : (double) passages / corridors;
+	}
+
+	/**Returns the number of passages on the path from the entrance to the exit, or -1 if
+	 * there is none.*/
+	public int getSolutionLength() {
+		return solutionLength;
+	}
+
+	/**Returns the number of passages on the longest path between any two cells.*/
+	public int getDiameter() {
+		return diameter;
+	}
+
+	/**Returns the metrics, one per line.*/
+	@Override
+	public String toString() {
+		return String.format(Locale.ROOT,
+				"cells %d%ndead ends %d (%.1f%%)%njunctions %d (%.1f%%), degree 3: %d, degree 4: %d%n"
+				+ "corridors %d, mean length %.2f, longest %d%nsolution length %d%ndiameter %d",
+				cells, getDeadEnds(), 100.0 * getDeadEnds() / Math.max(1, cells),
+				getJunctions(), 100.0 * getJunctions() / Math.max(1, cells), degrees[3], degrees[4],
+				getCorridors(), getMeanCorridorLength(), Math.max(0, corridorLengths.length - 1),
+				solutionLength, diameter);
+	}
+
+	/**
+	 * The degrees and corridors counted over some of the cells.
+	 */
+	private static final class Tally {
+
+		/**The number of cells of each degree.*/
+		private long[] degrees = new long[5];
+
+		/**The number of corridors of each length, with room for more.*/
+		private long[] corridors = new long[16];
+
+		/**The length of the longest corridor counted, or -1 if none have been.*/
+		private int longest = -1;
+
+		/**Counts the cells from first to before end, and the corridors starting at them.*/
+		private Tally count(CellGraph graph, int first, int end) {
+			int[] adjacent = new int[4];
+			int[] along = new int[4];
+			for (int cell = first; cell < end; cell++) {
+				int degree = graph.pathNeighbors(cell, adjacent);
+				degrees[degree]++;
+				if (degree == 2) {
+					continue;
+				}
+				for (int i = 0; i < degree; i++) {									//Walk each corridor to its far end
+					int previous = cell;
+					int current = adjacent[i];
+					int length = 1;
+					while (graph.pathNeighbors(current, along) == 2) {
+						int next = along[0] == previous ? along[1] : along[0];
+						previous = current;
+						current = next;
+						length++;
+					}
+					if (cell < current) {											//Counted from its lower end only
+						add(length);
+					}
+				}
+			}
+			return this;
+		}
+
+		/**Counts a corridor of the given length.*/
+		private void add(int length) {
+			if (length >= corridors.length) {
+				corridors = Arrays.copyOf(corridors, Math.max(length + 1, corridors.length * 2));
+			}
+			corridors[length]++;
+			longest = Math.max(longest, length);
+		}
+
+		/**Adds the counts of another tally to this one's.*/
+		private Tally merge(Tally other) {
+			Tally merged = new Tally();
+			merged.corridors = new long[Math.max(corridors.length, other.corridors.length)];
+			for (int d = 0; d < degrees.length; d++) {
+				merged.degrees[d] = degrees[d] + other.degrees[d];
+			}
+			for (int l = 0; l < corridors.length; l++) {
+				merged.corridors[l] += corridors[l];
+			}
+			for (int l = 0; l < other.corridors.length; l++) {
+				merged.corridors[l] += other.corridors[l];
+			}
+			merged.longest = Math.max(longest, other.longest);
+			return merged;
+		}
+
+	}
+
+}
@@ -0,0 +1,213 @@
+/*	Tabitha Stein 	*
+ *	Maze Generator	*/
+
+package model;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counts and times the work done by the generating and solving algorithms, registered
+ * with the platform MBeanServer as {@value #OBJECT_NAME} so it can be watched through JMX
+ * in production. The algorithms count in local variables as they run and record their
+ * totals once at the end of each build or solve, into striped LongAdders, so recording
+ * costs a few atomic additions per build or solve however large the Maze, and contending
+ * threads do not slow each other down. The one exception is notifying Observers, which is
+ * timed at every step, but only for Mazes that have Observers.
+ *
+ * @author Tabitha Stein
+ * @version 2.0
+ */
+public final class MazeStats implements MazeStatsMXBean {
+
+	/**The name the statistics are registered under.*/
+	public static final String OBJECT_NAME = "model:type=MazeStats";
+
+	/**The statistics of every Maze in this JVM.*/
+	private static final MazeStats INSTANCE = register(new MazeStats());
+
+	private final LongAdder mazesGenerated = new LongAdder();
+	private final LongAdder cellsProcessed = new LongAdder();
+	private final LongAdder edgesConsidered = new LongAdder();
+	private final LongAdder generationNanos = new LongAdder();
+	private final LongAccumulator peakPrimFrontier = new LongAccumulator(Math::max, 0);
+	private final LongAdder kruskalUnions = new LongAdder();
+	private final LongAdder solves = new LongAdder();
+	private final LongAdder solveNanos = new LongAdder();
+
+	/**The cells expanded by each solving algorithm, by ordinal; for dead-end filling, the
+	 * cells filled.*/
+	private final LongAdder[] nodesExpanded = new LongAdder[Maze.Solver.values().length];
+
+	private final LongAdder pathTreeExpanded = new LongAdder();
+
+	private final LongAdder notifications = new LongAdder();
+	private final LongAdder notificationNanos = new LongAdder();
+
+	private MazeStats() {
+		for (int i = 0; i < nodesExpanded.length; i++) {
+			nodesExpanded[i] = new LongAdder();
+		}
+	}
+
+	/**Registers the statistics with the platform MBeanServer, carrying on without them
+	 * being visible if that fails, and returns them.*/
+	private static MazeStats register(MazeStats stats) {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(stats, new ObjectName(OBJECT_NAME));
+		} catch (JMException | SecurityException e) {
+			//Recorded all the same, just not visible through JMX
+		}
+		return stats;
+	}
+
+	/**
+	 * Returns the statistics of every Maze in this JVM.
+	 */
+	public static MazeStats get() {
+		return INSTANCE;
+	}
+
+	/**Records a Maze of the given number of cells built after considering the given number
+	 * of edges.*/
+	void recordGeneration(int cells, long edges, long nanos) {
+		mazesGenerated.increment();
+		cellsProcessed.add(cells);
+		edgesConsidered.add(edges);
+		generationNanos.add(nanos);
+	}
+
+	/**Records the largest frontier of one run of Prim's algorithm.*/
+	void recordPrimFrontier(int peak) {
+		peakPrimFrontier.accumulate(peak);
+	}
+
+	/**Records the trees joined by one run of Kruskal's algorithm.*/
+	void recordUnions(long unions) {
+		kruskalUnions.add(unions);
+	}
+
+	/**Records a solve by the given algorithm.*/
+	void recordSolve(Maze.Solver solver, long expanded, long nanos) {
+		solves.increment();
+		nodesExpanded[solver.ordinal()].add(expanded);
+		solveNanos.add(nanos);
+	}
+
+	/**Records the given number of searches by PathTree, which reached the given number of
+	 * cells between them.*/
+	void recordPathTreeSearches(int searches, long expanded, long nanos) {
+		solves.add(searches);
+		pathTreeExpanded.add(expanded);
+		solveNanos.add(nanos);
+	}
+
+	/**Records one notification of Observers.*/
+	void recordNotification(long nanos) {
+		notifications.increment();
+		notificationNanos.add(nanos);
+	}
+
+	@Override
+	public long getMazesGenerated() {
+		return mazesGenerated.sum();
+	}
+
+	@Override
+	public long getCellsProcessed() {
+		return cellsProcessed.sum();
+	}
+
+	@Override
+	public long getEdgesConsidered() {
+		return edgesConsidered.sum();
+	}
+
+	@Override
+	public long getGenerationTimeNanos() {
+		return generationNanos.sum();
+	}
+
+	@Override
+	public long getPeakPrimFrontier() {
+		return peakPrimFrontier.get();
+	}
+
+	@Override
+	public long getKruskalUnions() {
+		return kruskalUnions.sum();
+	}
+
+	@Override
+	public long getSolves() {
+		return solves.sum();
+	}
+
+	@Override
+	public long getSolveTimeNanos() {
+		return solveNanos.sum();
+	}
+
+	@Override
+	public long getDepthFirstNodesExpanded() {
+		return nodesExpanded[Maze.Solver.DEPTH_FIRST.ordinal()].sum();
+	}
+
+	@Override
+	public long getBreadthFirstNodesExpanded() {
+		return nodesExpanded[Maze.Solver.BREADTH_FIRST.ordinal()].sum();
+	}
+
+	@Override
+	public long getAStarNodesExpanded() {
+		return nodesExpanded[Maze.Solver.A_STAR.ordinal()].sum();
+	}
+
+	@Override
+	public long getBidirectionalNodesExpanded() {
+		return nodesExpanded[Maze.Solver.BIDIRECTIONAL.ordinal()].sum();
+	}
+
+	@Override
+	public long getDeadEndFillingCellsFilled() {
+		return nodesExpanded[Maze.Solver.DEAD_END_FILLING.ordinal()].sum();
+	}
+
+	@Override
+	public long getPathTreeNodesExpanded() {
+		return pathTreeExpanded.sum();
+	}
+
+	@Override
+	public long getObserverNotifications() {
+		return notifications.sum();
+	}
+
+	@Override
+	public long getObserverNotificationTimeNanos() {
+		return notificationNanos.sum();
+	}
+
+	@Override
+	public void reset() {
+		mazesGenerated.reset();
+		cellsProcessed.reset();
+		edgesConsidered.reset();
+		generationNanos.reset();
+		peakPrimFrontier.reset();
+		kruskalUnions.reset();
+		solves.reset();
+		solveNanos.reset();
+		for (LongAdder expanded : nodesExpanded) {
+			expanded.reset();
+		}
+		pathTreeExpanded.reset();
+		notifications.reset();
+		notificationNanos.reset();
+	}
+
+}
@@ -0,0 +1,71 @@
+/*	Tabitha Stein 	*
+ *	Maze Generator	*/
+
+package model;
+
+/**
+ * The management interface of {@link MazeStats}: counts and times of the work done by the
+ * generating and solving algorithms of every Maze in this JVM since it started or the
+ * statistics were last reset.
+ *
+ * @author Tabitha Stein
+ * @version 2.0
+ */
+public interface MazeStatsMXBean {
+
+	/**Returns the number of Mazes built.*/
+	long getMazesGenerated();
+
+	/**Returns the number of cells of the Mazes built.*/
+	long getCellsProcessed();
+
+	/**Returns the number of edges between cells looked at while building, each time one
+	 * was looked at.*/
+	long getEdgesConsidered();
+
+	/**Returns the nanoseconds spent building Mazes.*/
+	long getGenerationTimeNanos();
+
+	/**Returns the largest frontier Prim's algorithm has held.*/
+	long getPeakPrimFrontier();
+
+	/**Returns the number of trees joined by Kruskal's algorithm, in either form.*/
+	long getKruskalUnions();
+
+	/**Returns the number of solves: each search by a solving algorithm, each dead-end fill,
+	 * and each search from one cell by {@link PathTree}, including those made by a
+	 * {@link SolutionCache} on a miss. Paths answered by a cache or read from a
+	 * {@link PathIndex} are not searched for, so are not counted.*/
+	long getSolves();
+
+	/**Returns the nanoseconds spent solving, including telling listeners of the steps.*/
+	long getSolveTimeNanos();
+
+	/**Returns the number of cells depth first search has moved onto.*/
+	long getDepthFirstNodesExpanded();
+
+	/**Returns the number of cells breadth first search has dequeued.*/
+	long getBreadthFirstNodesExpanded();
+
+	/**Returns the number of cells A* search has taken from its heap.*/
+	long getAStarNodesExpanded();
+
+	/**Returns the number of cells bidirectional search has dequeued from either side.*/
+	long getBidirectionalNodesExpanded();
+
+	/**Returns the number of cells dead-end filling has filled.*/
+	long getDeadEndFillingCellsFilled();
+
+	/**Returns the number of cells the searches of {@link PathTree} have reached.*/
+	long getPathTreeNodesExpanded();
+
+	/**Returns the number of times the Observers of a Maze have been notified of a step.*/
+	long getObserverNotifications();
+
+	/**Returns the nanoseconds spent notifying Observers.*/
+	long getObserverNotificationTimeNanos();
+
+	/**Sets every count and time back to zero.*/
+	void reset();
+
+}
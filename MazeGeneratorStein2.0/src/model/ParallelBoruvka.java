@@ -0,0 +1,203 @@
+/*	Tabitha Stein 	*
+ *	Maze Generator	*/
+
+package model;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * Builds a spanning tree over the lattice of a MazeGrid with Boruvka's algorithm, spread
+ * over the common ForkJoinPool. Every lattice edge gets a distinct pseudo-random weight
+ * derived from a seed, so the minimum spanning tree is unique: the Maze depends only on
+ * the seed and never on how the work was scheduled, and it is distributed like one built
+ * by randomized Kruskal's.
+ * <p>
+ * Each round, every component finds its lightest edge leading out of it, all those edges
+ * join the tree at once, and the components they connect are merged by pointer jumping,
+ * so there are at most log2(cells) rounds, each of them linear work split across cores.
+ * Edges are identified the same way as the grid's passage bits, twice the index of the
+ * upper/left cell plus one for a south edge, so the finished tree is copied into the grid
+ * a word at a time without two threads ever writing the same word.
+ *
+ * @author Tabitha Stein
+ * @version 2.0
+ */
+final class ParallelBoruvka {
+
+	/**The number of cells or words handled by one task.*/
+	private static final int CHUNK = 1 << 14;
+
+	/**Marks a component that has found no edge leading out of it.*/
+	private static final long NONE = Long.MAX_VALUE;
+
+	/**The grid being built.*/
+	private final MazeGrid grid;
+
+	/**The number of columns of cells in the grid.*/
+	private final int columns;
+
+	/**The number of cells in the grid.*/
+	private final int size;
+
+	/**The seed the edge weights are derived from.*/
+	private final long seed;
+
+	/**The component of each cell, named by its root cell. Between rounds every cell points
+	 * straight at its root.*/
+	private final int[] label;
+
+	/**The weight and edge of the lightest edge leading out of each root's component.*/
+	private final AtomicLongArray lightest;
+
+	/**The root each root's component is merged into this round, or itself.*/
+	private final int[] hook;
+
+	/**Set for each edge, by edge id, that has joined the tree.*/
+	private final boolean[] inTree;
+
+	private ParallelBoruvka(MazeGrid theGrid, long theSeed) {
+		grid = theGrid;
+		columns = grid.columns();
+		size = grid.size();
+		seed = theSeed;
+		label = new int[size];
+		lightest = new AtomicLongArray(size);
+		hook = new int[size];
+		inTree = new boolean[size * 2];
+	}
+
+	/**
+	 * Knocks down the walls of a random spanning tree over the given grid, whose walls
+	 * must all be standing.
+	 * @param grid the grid to build
+	 * @param seed the seed the edge weights are derived from
+	 */
+	static void build(MazeGrid grid, long seed) {
+		if (grid.size() > 0) {
+			new ParallelBoruvka(grid, seed).run();
+		}
+	}
+
+	/**Merges components until one remains, then copies the tree into the grid.*/
+	private void run() {
+		chunks(size).forEach(chunk -> {
+			for (int c = chunk * CHUNK, end = Math.min(size, c + CHUNK); c < end; c++) {
+				label[c] = c;
+			}
+		});
+		int components = size;
+		while (components > 1) {
+			chunks(size).forEach(this::resetLightest);
+			chunks(size).forEach(this::findLightest);
+			chunks(size).forEach(this::chooseHooks);
+			chunks(size).forEach(chunk -> {
+				for (int c = chunk * CHUNK, end = Math.min(size, c + CHUNK); c < end; c++) {
+					if (label[c] == c) {
+						label[c] = hook[c];
+					}
+				}
+			});
+			components = chunks(size).map(this::jumpToRoots).sum();
+		}
+		int words = (int) (((long) size * 2 + 63) >>> 6);
+		chunks(words).forEach(chunk -> {
+			for (int w = chunk * CHUNK, end = Math.min(words, w + CHUNK); w < end; w++) {
+				long bits = 0L;
+				for (int b = 0, e = w << 6; b < 64 && e < inTree.length; b++, e++) {
+					if (inTree[e]) {
+						bits |= 1L << b;
+					}
+				}
+				grid.setPassageWord(w, bits);
+			}
+		});
+	}
+
+	/**Returns a parallel stream of the indices of the chunks covering count items.*/
+	private static IntStream chunks(int count) {
+		return IntStream.range(0, (count + CHUNK - 1) / CHUNK).parallel();
+	}
+
+	/**Forgets the lightest edges found by the chunk's roots in the previous round.*/
+	private void resetLightest(int chunk) {
+		for (int c = chunk * CHUNK, end = Math.min(size, c + CHUNK); c < end; c++) {
+			lightest.set(c, NONE);
+		}
+	}
+
+	/**Offers each edge of the chunk's cells that joins two components to both of them.*/
+	private void findLightest(int chunk) {
+		for (int c = chunk * CHUNK, end = Math.min(size, c + CHUNK); c < end; c++) {
+			int component = label[c];
+			if ((c + 1) % columns != 0 && label[c + 1] != component) {				//east
+				long key = key(c << 1);
+				offer(component, key);
+				offer(label[c + 1], key);
+			}
+			if (c + columns < size && label[c + columns] != component) {			//south
+				long key = key((c << 1) + 1);
+				offer(component, key);
+				offer(label[c + columns], key);
+			}
+		}
+	}
+
+	/**Has each root of the chunk pick the component its lightest edge leads to.*/
+	private void chooseHooks(int chunk) {
+		for (int r = chunk * CHUNK, end = Math.min(size, r + CHUNK); r < end; r++) {
+			if (label[r] != r) {
+				continue;
+			}
+			long key = lightest.get(r);
+			if (key == NONE) {
+				hook[r] = r;
+				continue;
+			}
+			int edge = (int) key;
+			int a = edge >>> 1;
+			int b = (edge & 1) == 0 ? a + 1 : a + columns;
+			int other = label[a] == r ? label[b] : label[a];
+			inTree[edge] = true;
+			//Two components whose lightest edges are the same edge would hook onto each other;
+			//the lower numbered one stays a root instead
+			hook[r] = lightest.get(other) == key && r < other ? r : other;
+		}
+	}
+
+	/**Points each cell of the chunk straight at its root and returns how many of the
+	 * chunk's cells are roots.*/
+	private int jumpToRoots(int chunk) {
+		int roots = 0;
+		for (int c = chunk * CHUNK, end = Math.min(size, c + CHUNK); c < end; c++) {
+			int root = label[c];
+			while (label[root] != root) {
+				root = label[root];
+			}
+			label[c] = root;
+			if (root == c) {
+				roots++;
+			}
+		}
+		return roots;
+	}
+
+	/**Returns the weight of the given edge in the high bits and the edge in the low bits,
+	 * so keys compare by weight and no two edges' keys are equal.*/
+	private long key(int edge) {
+		long z = seed + edge * 0x9E3779B97F4A7C15L;								//SplitMix64 finalizer
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		z ^= z >>> 31;
+		return ((z >>> 33) << 32) | edge;
+	}
+
+	/**Lowers the lightest edge recorded for the given root to key, if key is lighter.*/
+	private void offer(int root, long key) {
+		long current = lightest.get(root);
+		while (key < current && !lightest.compareAndSet(root, current, key)) {
+			current = lightest.get(root);
+		}
+	}
+
+}
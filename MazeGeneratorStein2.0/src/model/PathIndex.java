@@ -0,0 +1,177 @@
+/*	Tabitha Stein 	*
+ *	Maze Generator	*/
+
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Answers questions about the paths between any two cells of a perfect maze without
+ * searching it. A perfect maze is a spanning tree of its cells, so the path between two
+ * cells runs up from each to their lowest common ancestor. The index roots the tree at
+ * the entrance and records an Euler tour of it, the cells in the order a depth first walk
+ * enters and returns to them, with a sparse table of the shallowest cell in every stretch
+ * of the tour whose length is a power of two. The lowest common ancestor of two cells is
+ * the shallowest cell between their first visits in the tour, found from two overlapping
+ * stretches of the table, so the length of any path is known in constant time, and the
+ * path itself is walked up the parents in time proportional to its length.
+ * <p>
+ * The table holds about 2n log2(2n) ints for a maze of n cells, so building an index is
+ * worthwhile when many paths are asked for, and is best avoided for the very largest
+ * mazes. The maze must not change once it is indexed.
+ *
+ * @author Tabitha Stein
+ * @version 2.0
+ */
+public final class PathIndex {
+
+	/**The cell each cell is reached from on the way down from the root, or -1 for the
+	 * root.*/
+	private final int[] parent;
+
+	/**The number of passages between each cell and the root.*/
+	private final int[] depth;
+
+	/**The position of the first visit to each cell in the Euler tour.*/
+	private final int[] first;
+
+	/**table[k][i] is the shallowest of the 2^k cells of the tour starting at position i;
+	 * table[0] is the tour itself.*/
+	private final int[][] table;
+
+	/**
+	 * Indexes the paths of the given perfect maze, rooting its tree at the entrance.
+	 * @param graph the cells of a perfect maze, in which every cell is joined to every
+	 *        other by exactly one path
+	 * @throws IllegalArgumentException if the graph has no cells, or is not a perfect maze
+	 */
+	public PathIndex(CellGraph graph) {
+		int size = graph.size();
+		if (size == 0) {
+			throw new IllegalArgumentException("Maze has no cells");
+		}
+		parent = new int[size];
+		depth = new int[size];
+		first = new int[size];
+		int[] tour = new int[2 * size - 1];
+		walkTree(graph, Math.max(graph.getStart(), 0), tour);
+
+		int levels = 32 - Integer.numberOfLeadingZeros(tour.length);
+		table = new int[levels][];
+		table[0] = tour;
+		for (int k = 1; k < levels; k++) {
+			int[] below = table[k - 1];
+			int half = 1 << (k - 1);
+			int[] level = new int[tour.length - (1 << k) + 1];
+			for (int i = 0; i < level.length; i++) {
+				level[i] = shallower(below[i], below[i + half]);
+			}
+			table[k] = level;
+		}
+	}
+
+	/**Walks the tree depth first from the given root without recursion, recording each
+	 * cell's parent, depth and first visit, and the tour.
+	 * @throws IllegalArgumentException if the walk finds a cycle or misses a cell*/
+	private void walkTree(CellGraph graph, int root, int[] tour) {
+		int size = parent.length;
+		int[] stack = new int[size];
+		byte[] nextNeighbor = new byte[size];										//Path neighbors already tried
+		int[] adjacent = new int[4];
+		Arrays.fill(first, -1);
+		int top = 0;
+		int length = 0;
+		stack[0] = root;
+		parent[root] = -1;
+		first[root] = length;
+		tour[length++] = root;
+
+		while (top >= 0) {
+			int cell = stack[top];
+			int count = graph.pathNeighbors(cell, adjacent);
+			int child = -1;
+			while (child < 0 && nextNeighbor[cell] < count) {
+				int neighbor = adjacent[nextNeighbor[cell]++];
+				if (neighbor != parent[cell]) {
+					child = neighbor;
+				}
+			}
+			if (child >= 0) {														//Go down to the child
+				if (first[child] >= 0) {
+					throw new IllegalArgumentException("Maze has a loop through cell " + child);
+				}
+				parent[child] = cell;
+				depth[child] = depth[cell] + 1;
+				first[child] = length;
+				tour[length++] = child;
+				stack[++top] = child;
+			} else if (--top >= 0) {												//Back up to the parent
+				tour[length++] = stack[top];
+			}
+		}
+		if (length != tour.length) {
+			throw new IllegalArgumentException("Maze does not join every cell");
+		}
+	}
+
+	/**Returns whichever of the two cells is nearer the root.*/
+	private int shallower(int a, int b) {
+		return depth[a] <= depth[b] ? a : b;
+	}
+
+	/**
+	 * Returns the cell where the paths from the two given cells up to the entrance meet;
+	 * the path between the two cells turns around there.
+	 * @param a a cell
+	 * @param b another cell, or the same one
+	 * @return their lowest common ancestor
+	 */
+	public int lowestCommonAncestor(int a, int b) {
+		int from = Math.min(first[a], first[b]);
+		int to = Math.max(first[a], first[b]);
+		int k = 31 - Integer.numberOfLeadingZeros(to - from + 1);
+		return shallower(table[k][from], table[k][to - (1 << k) + 1]);
+	}
+
+	/**
+	 * Returns the number of passages on the path between two cells, in constant time.
+	 * @param a a cell
+	 * @param b another cell, or the same one
+	 * @return the length of the path, 0 if the cells are the same
+	 */
+	public int distance(int a, int b) {
+		return depth[a] + depth[b] - 2 * depth[lowestCommonAncestor(a, b)];
+	}
+
+	/**
+	 * Returns the number of passages between a cell and the entrance.
+	 * @param cell a cell
+	 * @return the length of the path from the entrance to the cell
+	 */
+	public int depth(int cell) {
+		return depth[cell];
+	}
+
+	/**
+	 * Returns the cells of the path between two cells, in order from the first to the
+	 * second, in time proportional to its length.
+	 * @param a the cell the path starts at
+	 * @param b the cell the path ends at
+	 * @return the cells of the path, both ends included
+	 */
+	public int[] path(int a, int b) {
+		int turn = lowestCommonAncestor(a, b);
+		int[] path = new int[depth[a] + depth[b] - 2 * depth[turn] + 1];
+		int i = 0;
+		for (int v = a; v != turn; v = parent[v]) {									//Up from a
+			path[i++] = v;
+		}
+		path[i] = turn;
+		int j = path.length - 1;
+		for (int v = b; v != turn; v = parent[v]) {									//Up from b, filled backwards
+			path[j--] = v;
+		}
+		return path;
+	}
+
+}
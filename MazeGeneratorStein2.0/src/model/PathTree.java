@@ -0,0 +1,211 @@
+/*	Tabitha Stein 	*
+ *	Maze Generator	*/
+
+package model;
+
+import java.util.Arrays;
+
+/**
+ * The shortest paths from one cell of a maze to every other, found by a single breadth
+ * first search and kept as the cell each cell was first reached from. Any number of paths
+ * from the source can then be read off the tree without searching again, so a maze with
+ * several exits or checkpoints is searched once rather than once per target. Batches of
+ * paths between arbitrary pairs of cells are solved with one search per distinct source,
+ * each stopping as soon as every target of that source has been reached.
+ *
+ * @author Tabitha Stein
+ * @version 2.0
+ */
+public final class PathTree {
+
+	/**The parent of a cell the search has not reached.*/
+	private static final int UNREACHED = -2;
+
+	/**The cell the paths start from.*/
+	private final int source;
+
+	/**The cell each cell was first reached from, -1 for the source, or UNREACHED.*/
+	private final int[] parent;
+
+	private PathTree(int theSource, int[] theParent) {
+		source = theSource;
+		parent = theParent;
+	}
+
+	/**
+	 * Searches the given maze from the given cell and keeps the paths found to every cell.
+	 * @param graph the cells of the maze
+	 * @param source the cell the paths start from
+	 * @return the paths
+	 * @throws IllegalArgumentException if the source is not a cell of the maze
+	 */
+	public static PathTree from(CellGraph graph, int source) {
+		checkCell(graph, source);
+		long begin = System.nanoTime();
+		int size = graph.size();
+		int[] parent = new int[size];
+		Arrays.fill(parent, UNREACHED);
+		int reached = grow(graph, source, parent, new int[size], null, Integer.MAX_VALUE);
+		MazeStats.get().recordPathTreeSearches(1, reached, System.nanoTime() - begin);
+		return new PathTree(source, parent);
+	}
+
+	/**
+	 * Finds the shortest path between each given pair of cells of a maze. The pairs are
+	 * grouped by source, and each source is searched from once, only as far as the
+	 * farthest of its targets.
+	 * @param graph the cells of the maze
+	 * @param sources the cell each path starts from
+	 * @param targets the cell each path ends at, one for each source
+	 * @return the cells of each path, in order from its source to its target, or no cells
+	 *         if the target cannot be reached
+	 * @throws IllegalArgumentException if there are not as many sources as targets, or
+	 *         they are not cells of the maze
+	 */
+	public static int[][] solveAll(CellGraph graph, int[] sources, int[] targets) {
+		if (sources.length != targets.length) {
+			throw new IllegalArgumentException(sources.length + " sources for " + targets.length + " targets");
+		}
+		long[] bySource = new long[sources.length];								//Source, then pair index
+		for (int i = 0; i < sources.length; i++) {
+			checkCell(graph, sources[i]);
+			checkCell(graph, targets[i]);
+			bySource[i] = ((long) sources[i] << 32) | i;
+		}
+		Arrays.sort(bySource);
+
+		long begin = System.nanoTime();
+		int searches = 0;
+		long expanded = 0;
+		int size = graph.size();
+		int[][] paths = new int[sources.length][];
+		int[] parent = new int[size];												//Shared by every search
+		int[] queue = new int[size];
+		long[] wanted = new long[(size + 63) >>> 6];
+		Arrays.fill(parent, UNREACHED);
+		int first = 0;
+		while (first < bySource.length) {
+			int source = (int) (bySource[first] >>> 32);
+			int end = first;
+			int wantedCount = 0;
+			for (; end < bySource.length && (int) (bySource[end] >>> 32) == source; end++) {
+				int target = targets[(int) bySource[end]];
+				if ((wanted[target >>> 6] & (1L << target)) == 0) {
+					wanted[target >>> 6] |= 1L << target;
+					wantedCount++;
+				}
+			}
+			int reached = grow(graph, source, parent, queue, wanted, wantedCount);
+			searches++;
+			expanded += reached;
+			for (int p = first; p < end; p++) {
+				int pair = (int) bySource[p];
+				paths[pair] = pathTo(parent, targets[pair]);
+				wanted[targets[pair] >>> 6] &= ~(1L << targets[pair]);
+			}
+			for (int i = 0; i < reached; i++) {										//Undo only what was touched
+				parent[queue[i]] = UNREACHED;
+			}
+			first = end;
+		}
+		MazeStats.get().recordPathTreeSearches(searches, expanded, System.nanoTime() - begin);
+		return paths;
+	}
+
+	/**
+	 * Searches breadth first from the source until every cell has been reached or, given
+	 * wanted cells, until the given number of them have been, recording the parent of each
+	 * cell reached and queuing each exactly once.
+	 * @return the number of cells reached, which are the first cells of the queue
+	 */
+	private static int grow(CellGraph graph, int source, int[] parent, int[] queue, long[] wanted,
+			int wantedCount) {
+		int[] adjacent = new int[4];
+		int head = 0;
+		int tail = 0;
+		parent[source] = -1;
+		queue[tail++] = source;
+		while (head < tail && wantedCount > 0) {
+			int cell = queue[head++];
+			if (wanted != null && (wanted[cell >>> 6] & (1L << cell)) != 0) {
+				wantedCount--;
+			}
+			int count = graph.pathNeighbors(cell, adjacent);
+			for (int i = 0; i < count; i++) {
+				int child = adjacent[i];
+				if (parent[child] == UNREACHED) {
+					parent[child] = cell;
+					queue[tail++] = child;
+				}
+			}
+		}
+		return tail;
+	}
+
+	/**Returns the cells of the path from the root of the given parents to the target.*/
+	private static int[] pathTo(int[] parent, int target) {
+		if (parent[target] == UNREACHED) {
+			return new int[0];
+		}
+		int length = 0;
+		for (int v = target; v != -1; v = parent[v]) {
+			length++;
+		}
+		int[] path = new int[length];
+		for (int v = target; v != -1; v = parent[v]) {							//Filled from the target back
+			path[--length] = v;
+		}
+		return path;
+	}
+
+	/**Checks that the given cell is one of the cells of the maze.*/
+	private static void checkCell(CellGraph graph, int cell) {
+		if (cell < 0 || cell >= graph.size()) {
+			throw new IllegalArgumentException("No such cell: " + cell);
+		}
+	}
+
+	/**
+	 * Returns the cell the paths start from.
+	 */
+	public int getSource() {
+		return source;
+	}
+
+	/**
+	 * Returns true if there is a path from the source to the given cell.
+	 * @param target a cell of the maze
+	 */
+	public boolean reaches(int target) {
+		return parent[target] != UNREACHED;
+	}
+
+	/**
+	 * Returns the cells of the shortest path from the source to the given cell, in time
+	 * proportional to its length.
+	 * @param target a cell of the maze
+	 * @return the cells of the path in order from the source to the target, or no cells if
+	 *         the target cannot be reached
+	 */
+	public int[] pathTo(int target) {
+		return pathTo(parent, target);
+	}
+
+	/**
+	 * Returns the number of passages on the shortest path from the source to the given
+	 * cell.
+	 * @param target a cell of the maze
+	 * @return the length of the path, or -1 if the target cannot be reached
+	 */
+	public int distanceTo(int target) {
+		if (parent[target] == UNREACHED) {
+			return -1;
+		}
+		int length = 0;
+		for (int v = parent[target]; v != -1; v = parent[v]) {
+			length++;
+		}
+		return length;
+	}
+
+}
@@ -0,0 +1,108 @@
+/*	Tabitha Stein 	*
+ *	Maze Generator	*/
+
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Working storage for searching the cells of a Maze, sized to its number of cells and
+ * kept between solves so that repeated searches allocate nothing. Holds a parent index
+ * per cell, a queue, stack or heap of cell indices, and a bitset of visited cells. The
+ * extra per-cell arrays of A* search and the second bitset of bidirectional search are
+ * only created the first time those searches run.
+ *
+ * @author Tabitha Stein
+ * @version 2.0
+ */
+final class SearchBuffers {
+
+	/**The cell each cell was first reached from, valid only for visited cells.*/
+	final int[] parent;
+
+	/**Cell indices waiting to be explored: a ring buffer for breadth first search, a
+	 * stack for depth first search, a binary heap for A* search, and two queues growing
+	 * from either end for bidirectional search. Holds every cell, so it can never overflow.*/
+	final int[] cells;
+
+	/**The length of the shortest path found so far to each cell, for A* search.*/
+	int[] distance;
+
+	/**The length of each cell's path plus its estimated distance to the exit, for A*
+	 * search.*/
+	int[] estimate;
+
+	/**The position of each cell in the A* heap, or -1 once it has left it.*/
+	int[] heapPosition;
+
+	/**Scratch space for the up to four neighbors of a cell.*/
+	final int[] adjacent;
+
+	/**One bit per cell, set once the cell has been visited.*/
+	private final long[] visited;
+
+	/**One bit per cell, set once the cell has been reached from the exit by bidirectional
+	 * search.*/
+	private long[] fromExit;
+
+	/**
+	 * Creates buffers for searching the given number of cells.
+	 * @param size the number of cells
+	 */
+	SearchBuffers(int size) {
+		parent = new int[size];
+		cells = new int[size];
+		adjacent = new int[4];
+		visited = new long[(size + 63) >>> 6];
+	}
+
+	/**Returns the number of cells these buffers can search.*/
+	int capacity() {
+		return parent.length;
+	}
+
+	/**Creates the arrays for A* search, if they have not been already.*/
+	void prepareHeap() {
+		if (distance == null) {
+			distance = new int[parent.length];
+			estimate = new int[parent.length];
+			heapPosition = new int[parent.length];
+		}
+	}
+
+	/**Marks every cell as not reached from the exit, creating the bitset for it first if
+	 * need be.*/
+	void clearFromExit() {
+		if (fromExit == null) {
+			fromExit = new long[visited.length];
+		} else {
+			Arrays.fill(fromExit, 0L);
+		}
+	}
+
+	/**Marks cell i as reached from the exit.*/
+	void reachFromExit(int i) {
+		fromExit[i >>> 6] |= 1L << i;
+	}
+
+	/**Returns true if cell i has been reached from the exit.*/
+	boolean isFromExit(int i) {
+		return (fromExit[i >>> 6] & (1L << i)) != 0;
+	}
+
+	/**Marks every cell as unvisited.*/
+	void clearVisited() {
+		Arrays.fill(visited, 0L);
+	}
+
+	/**Marks cell i as visited.*/
+	void visit(int i) {
+		visited[i >>> 6] |= 1L << i;
+	}
+
+	/**Returns true if cell i has been visited.*/
+	boolean isVisited(int i) {
+		return (visited[i >>> 6] & (1L << i)) != 0;
+	}
+
+}
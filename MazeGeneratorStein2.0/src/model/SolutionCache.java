@@ -0,0 +1,289 @@
+/*	Tabitha Stein 	*
+ *	Maze Generator	*/
+
+package model;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Remembers the paths between cells of Mazes that have already been solved, so solving
+ * the same Maze between the same cells again returns at once. Paths are keyed by the
+ * Maze they were found in, told by what builds it again: its dimensions, entrance, seed
+ * and generating algorithm, so a Maze rebuilt from the same seed, or saved and opened as
+ * a MazeFile, finds the paths cached for the original. Within a Maze, paths are keyed by
+ * the cells they run between, so the same Maze can be solved from a few entrances to a
+ * few exits. The path between two cells of a perfect maze is the only one, so it is found
+ * by a breadth first search stopping at the target rather than by any particular solver.
+ * <p>
+ * Paths are stored compactly as their first cell and two bits per step. The cache holds
+ * at most a given number of bytes of paths, dropping the least recently used when it is
+ * full, and counts its hits, misses and evictions. A Maze whose build cannot be repeated
+ * from its seed, such as a tiled one, is solved every time without being cached.
+ * <p>
+ * A cached path is returned without marking the Maze or telling its listeners of any
+ * steps; use the Maze's own solving methods to animate a solve. The cache may be shared
+ * between threads.
+ *
+ * @author Tabitha Stein
+ * @version 2.0
+ */
+public final class SolutionCache {
+
+	/**The bytes each entry costs besides the steps of its path, roughly: the key, the
+	 * path object and its array header, and the map entry.*/
+	private static final int ENTRY_OVERHEAD = 128;
+
+	/**The most bytes of paths to hold.*/
+	private final long maxBytes;
+
+	/**The paths held, least recently used first.*/
+	private final LinkedHashMap<Key, Path> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	/**The bytes of paths held.*/
+	private long bytes;
+
+	/**The number of solves answered from the cache.*/
+	private long hits;
+
+	/**The number of solves that had to search.*/
+	private long misses;
+
+	/**The number of paths dropped to make room for others.*/
+	private long evictions;
+
+	/**
+	 * Creates an empty cache.
+	 * @param maxBytes the most bytes of paths to hold, roughly
+	 */
+	public SolutionCache(long maxBytes) {
+		if (maxBytes < 0) {
+			throw new IllegalArgumentException("Size must not be negative: " + maxBytes);
+		}
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Returns the path through the given Maze from its entrance to its exit, from the cache
+	 * if it has been found before, or else by solving the Maze and caching the path.
+	 * @param maze a built Maze
+	 * @return the cells of the path from the entrance to the exit
+	 * @throws IllegalStateException if the Maze has not been built, or has no cells
+	 */
+	public int[] solve(Maze maze) {
+		CellGraph cells = maze.getCells();
+		if (cells.size() == 0) {
+			throw new IllegalStateException("Only a Maze with cells can be solved");
+		}
+		return solve(maze, cells.getStart(), cells.getExit());
+	}
+
+	/**
+	 * Returns the path between the given cells of the given Maze, from the cache if it has
+	 * been found before, or else by solving the Maze and caching the path.
+	 * @param maze a built Maze
+	 * @param from the cell the path starts from
+	 * @param to the cell the path ends at
+	 * @return the cells of the path in order from one cell to the other, or no cells if
+	 *         they are not joined
+	 * @throws IllegalStateException if the Maze has not been built
+	 * @throws IllegalArgumentException if the cells are not cells of the Maze
+	 */
+	public int[] solve(Maze maze, int from, int to) {
+		if (!maze.getBuilt()) {
+			throw new IllegalStateException("Only a built Maze can be solved");
+		}
+		return solve(maze.getCells(), maze.getBuildSeed(), maze.getBuiltWith(), from, to);
+	}
+
+	/**
+	 * Returns the path between the given cells of the given maze file, from the cache if
+	 * it has been found before in the file or in the Maze it was saved from, or else by
+	 * solving the maze and caching the path.
+	 * @param file a mapped maze
+	 * @param from the cell the path starts from
+	 * @param to the cell the path ends at
+	 * @return the cells of the path in order from one cell to the other, or no cells if
+	 *         they are not joined
+	 * @throws IllegalArgumentException if the cells are not cells of the maze
+	 */
+	public int[] solve(MazeFile file, int from, int to) {
+		return solve(file, file.getSeed(), file.getAlgorithm(), from, to);
+	}
+
+	/**Returns the path between the given cells of a maze built from the given seed with the
+	 * given algorithm, caching it unless the algorithm is null because the build cannot be
+	 * repeated.*/
+	private int[] solve(CellGraph cells, long seed, Maze.Algorithm algorithm, int from, int to) {
+		if (from < 0 || from >= cells.size() || to < 0 || to >= cells.size()) {
+			throw new IllegalArgumentException("No such cells: " + from + ", " + to);
+		}
+		Key key = algorithm == null ? null : new Key(cells, seed, algorithm, from, to);
+		Path cached;
+		synchronized (this) {
+			cached = key == null ? null : entries.get(key);
+			if (cached != null) {
+				hits++;
+			} else {
+				misses++;
+			}
+		}
+		if (cached != null) {
+			return cached.decode(cells.columns());
+		}
+
+		int[] path = PathTree.solveAll(cells, new int[] {from}, new int[] {to})[0];	//Search outside the lock
+		if (key == null) {
+			return path;
+		}
+		Path encoded = new Path(path, cells.columns());
+		synchronized (this) {
+			if (encoded.bytes() <= maxBytes) {
+				Path replaced = entries.put(key, encoded);
+				if (replaced != null) {
+					bytes -= replaced.bytes();
+				}
+				bytes += encoded.bytes();
+				Iterator<Map.Entry<Key, Path>> eldest = entries.entrySet().iterator();
+				while (bytes > maxBytes) {
+					bytes -= eldest.next().getValue().bytes();
+					eldest.remove();
+					evictions++;
+				}
+			}
+		}
+		return path;
+	}
+
+	/**Returns the number of solves answered from the cache.*/
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**Returns the number of solves that were not in the cache and had to search.*/
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**Returns the number of paths dropped to make room for others.*/
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	/**Returns the number of paths held.*/
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**Returns the bytes of paths held, roughly.*/
+	public synchronized long getBytes() {
+		return bytes;
+	}
+
+	/**Drops every path held, keeping the counts.*/
+	public synchronized void clear() {
+		entries.clear();
+		bytes = 0;
+	}
+
+	/**
+	 * What a path is cached under: what builds its maze again, and the cells it runs
+	 * between.
+	 */
+	private static final class Key {
+
+		private final int rows;
+		private final int columns;
+		private final int entrance;
+		private final long seed;
+		private final Maze.Algorithm algorithm;
+		private final int from;
+		private final int to;
+
+		private Key(CellGraph cells, long theSeed, Maze.Algorithm theAlgorithm, int theFrom, int theTo) {
+			rows = cells.rows();
+			columns = cells.columns();
+			entrance = cells.getStart();										//Where Prim's algorithm starts
+			seed = theSeed;
+			algorithm = theAlgorithm;
+			from = theFrom;
+			to = theTo;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof Key)) {
+				return false;
+			}
+			Key key = (Key) other;
+			return rows == key.rows && columns == key.columns && entrance == key.entrance && seed == key.seed
+					&& algorithm == key.algorithm && from == key.from && to == key.to;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(rows, columns, entrance, seed, algorithm, from, to);
+		}
+
+	}
+
+	/**
+	 * A path stored as its first cell and the direction of each step from there, two bits
+	 * a step: 0 up, 1 down, 2 right and 3 left.
+	 */
+	private static final class Path {
+
+		/**The first cell of the path, or -1 if it has no cells.*/
+		private final int first;
+
+		/**The number of steps, one less than the number of cells.*/
+		private final int steps;
+
+		/**The directions of the steps, 32 to a long, first in the low bits.*/
+		private final long[] moves;
+
+		private Path(int[] cells, int columns) {
+			first = cells.length > 0 ? cells[0] : -1;
+			steps = Math.max(0, cells.length - 1);
+			moves = new long[(steps + 31) >>> 5];
+			for (int i = 0; i < steps; i++) {
+				int change = cells[i + 1] - cells[i];
+				long move = change == -columns ? 0 : change == columns ? 1 : change == 1 ? 2 : 3;
+				moves[i >>> 5] |= move << ((i & 31) << 1);
+			}
+		}
+
+		/**Returns the cells of the path.*/
+		private int[] decode(int columns) {
+			if (first < 0) {
+				return new int[0];
+			}
+			int[] cells = new int[steps + 1];
+			int cell = first;
+			cells[0] = cell;
+			for (int i = 0; i < steps; i++) {
+				switch ((int) (moves[i >>> 5] >>> ((i & 31) << 1)) & 3) {
+					case 0	:	cell -= columns;
+								break;
+					case 1	:	cell += columns;
+								break;
+					case 2	:	cell++;
+								break;
+					default	:	cell--;
+								break;
+				}
+				cells[i + 1] = cell;
+			}
+			return cells;
+		}
+
+		/**Returns the bytes this path costs the cache, roughly.*/
+		private long bytes() {
+			return ENTRY_OVERHEAD + 8L * moves.length;
+		}
+
+	}
+
+}
@@ -0,0 +1,403 @@
+/*	Tabitha Stein 	*
+ *	Maze Generator	*/
+
+package model;
+
+import java.util.BitSet;
+import java.util.SplittableRandom;
+
+/**
+ * The solving algorithms, run against any CellGraph. Every step is reported to a
+ * MazeListener as a cell marked {@value Maze#TENTATIVE} or {@value Maze#PATH}, so the
+ * caller decides whether steps are stored, displayed or simply collected, and the graph
+ * itself is only ever read.
+ *
+ * @author Tabitha Stein
+ * @version 2.0
+ */
+final class Solvers {
+
+	private Solvers() {
+	}
+
+	/**
+	 * Solves the graph using the given algorithm.
+	 * @param solver the algorithm to solve with
+	 * @param graph the cells to solve, with at least one cell
+	 * @param buffers buffers with room for every cell of the graph
+	 * @param randy the source of the choices made by depth first search
+	 * @param steps told of each cell tried and then of each cell of the path, in order
+	 *        from the entrance to the exit
+	 */
+	static void solve(Maze.Solver solver, CellGraph graph, SearchBuffers buffers, SplittableRandom randy,
+			MazeListener steps) {
+		switch (solver) {
+			case DEPTH_FIRST	:	depthFirstSearch(graph, buffers, randy, steps);
+									break;
+			case A_STAR			:	aStar(graph, buffers, steps);
+									break;
+			case BIDIRECTIONAL	:	bidirectionalSearch(graph, buffers, steps);
+									break;
+			case DEAD_END_FILLING	:	markPath(deadEndFilling(graph), steps);
+									break;
+			default				:	breadthFirstSearch(graph, buffers, steps);
+									break;
+		}
+	}
+
+	/**
+	 * Solves the graph using depth first search, which navigates a path until reaching a
+	 * dead end, then backtracks until it can try a different path. Remembers paths that
+	 * didn't work and doesn't revisit them. The path is held on an int stack and visited
+	 * cells in a bitset, both taken from the given buffers.
+	 * @param graph the cells to solve, with at least one cell
+	 * @param buffers buffers with room for every cell of the graph
+	 * @param randy the source of the choices between unvisited neighbors
+	 * @param steps told of each cell tried and then of each cell of the path, in order
+	 *        from the entrance to the exit; of no cells of the path if the exit cannot be
+	 *        reached
+	 */
+	static void depthFirstSearch(CellGraph graph, SearchBuffers buffers, SplittableRandom randy,
+			MazeListener steps) {
+		long begin = System.nanoTime();
+		int start = graph.getStart();
+		int exit = graph.getExit();
+		int[] pathStack = buffers.cells;											//Steps from start to finish
+		int[] adjacent = buffers.adjacent;
+		int top = 0;
+		buffers.clearVisited();
+		buffers.visit(start);
+		pathStack[top] = start;
+		long expanded = 1;
+		steps.cellMarked(start, Maze.TENTATIVE);
+
+		while (top >= 0 && pathStack[top] != exit) { 								//Navigate until the end is visited
+			int count = graph.pathNeighbors(pathStack[top], adjacent);
+			int unvisited = 0;
+			for (int i = 0; i < count; i++) {										//Keep adjacent unvisited cells
+				if (!buffers.isVisited(adjacent[i])) {
+					adjacent[unvisited++] = adjacent[i];
+				}
+			}
+			if (unvisited > 0) {
+				int randNeighbor = adjacent[randy.nextInt(unvisited)];
+				buffers.visit(randNeighbor);
+				pathStack[++top] = randNeighbor;
+				expanded++;
+				steps.cellMarked(randNeighbor, Maze.TENTATIVE);
+			} else {
+				top--;																//Dead end; backtrack one step
+			}
+		}
+		for (int i = 0; i <= top; i++) {											//Ordered start to exit; none if unreachable
+			steps.cellMarked(pathStack[i], Maze.PATH);
+		}
+		MazeStats.get().recordSolve(Maze.Solver.DEPTH_FIRST, expanded, System.nanoTime() - begin);
+	}
+
+	/**
+	 * Solves the graph using breadth first search, finding the shortest solution. Cells
+	 * are visited in level-order from an int ring buffer, each remembering the parent it
+	 * was first reached from, and the path is found by backtracking the parents from the
+	 * exit to the entrance.
+	 * @param graph the cells to solve, with at least one cell
+	 * @param buffers buffers with room for every cell of the graph
+	 * @param steps told of each cell dequeued, then of the exit, then of each cell of the
+	 *        path in order from the entrance to the exit; only of the cells dequeued if
+	 *        the exit cannot be reached
+	 */
+	static void breadthFirstSearch(CellGraph graph, SearchBuffers buffers, MazeListener steps) {
+		long begin = System.nanoTime();
+		int start = graph.getStart();
+		int exit = graph.getExit();
+		int[] visitedFrom = buffers.parent;										//Stores each visited child's parent
+		int[] levelQueue = buffers.cells;										//Holds unchecked, visited cells in level-order
+		int[] adjacent = buffers.adjacent;
+		int head = 0;
+		int tail = 0;
+		buffers.clearVisited();
+		buffers.visit(start);
+		visitedFrom[start] = -1;
+		levelQueue[tail++] = start;
+		int waiting = 1;
+		long expanded = 0;
+
+		while (!buffers.isVisited(exit) && waiting > 0) {						//Navigate by level until exit is reached
+			int parent = levelQueue[head];
+			head = head + 1 == levelQueue.length ? 0 : head + 1;
+			waiting--;
+			expanded++;
+			steps.cellMarked(parent, Maze.TENTATIVE);
+			int count = graph.pathNeighbors(parent, adjacent);
+			for (int i = 0; i < count; i++) {
+				int child = adjacent[i];
+				if (!buffers.isVisited(child)) {
+					buffers.visit(child);
+					visitedFrom[child] = parent;
+					levelQueue[tail] = child;
+					tail = tail + 1 == levelQueue.length ? 0 : tail + 1;
+					waiting++;
+				}
+			}
+		}
+		if (!buffers.isVisited(exit)) {											//Every reachable cell tried
+			MazeStats.get().recordSolve(Maze.Solver.BREADTH_FIRST, expanded, System.nanoTime() - begin);
+			return;
+		}
+
+		steps.cellMarked(exit, Maze.TENTATIVE);
+
+		int length = 0;															//The queue is done with, so reuse it
+		for (int v = exit; v != -1; v = visitedFrom[v]) {						//to hold the path from exit to start
+			levelQueue[length++] = v;
+		}
+		while (length > 0) {
+			steps.cellMarked(levelQueue[--length], Maze.PATH);
+		}
+		MazeStats.get().recordSolve(Maze.Solver.BREADTH_FIRST, expanded, System.nanoTime() - begin);
+	}
+
+	/**
+	 * Solves the graph using A* search, finding the shortest solution while exploring the
+	 * cells that look closest to the exit first. Cells wait in a binary heap of cell
+	 * indices ordered by the length of their path so far plus their Manhattan distance to
+	 * the exit, ties going to the longer path, and a cell reached again by a shorter path
+	 * is moved up the heap rather than added twice. The path is found by backtracking the
+	 * parents from the exit, as in breadth first search.
+	 * @param graph the cells to solve, with at least one cell
+	 * @param buffers buffers with room for every cell of the graph
+	 * @param steps told of each cell taken from the heap, the exit last, then of each cell
+	 *        of the path in order from the entrance to the exit
+	 */
+	static void aStar(CellGraph graph, SearchBuffers buffers, MazeListener steps) {
+		long begin = System.nanoTime();
+		int start = graph.getStart();
+		int exit = graph.getExit();
+		int columns = graph.columns();
+		int exitRow = exit / columns;
+		int exitColumn = exit % columns;
+		buffers.prepareHeap();
+		int[] parent = buffers.parent;
+		int[] heap = buffers.cells;
+		int[] distance = buffers.distance;
+		int[] estimate = buffers.estimate;
+		int[] position = buffers.heapPosition;
+		int[] adjacent = buffers.adjacent;
+		buffers.clearVisited();
+		buffers.visit(start);
+		parent[start] = -1;
+		distance[start] = 0;
+		estimate[start] = Math.abs(start / columns - exitRow) + Math.abs(start % columns - exitColumn);
+		heap[0] = start;
+		position[start] = 0;
+		int heapSize = 1;
+		long expanded = 0;
+		boolean found = false;
+
+		while (!found && heapSize > 0) {
+			int current = heap[0];
+			position[current] = -1;
+			if (--heapSize > 0) {												//Move the last cell to the top
+				heap[0] = heap[heapSize];
+				position[heap[0]] = 0;
+				siftDown(heap, position, estimate, distance, heapSize);
+			}
+			expanded++;
+			steps.cellMarked(current, Maze.TENTATIVE);
+			found = current == exit;
+			int count = found ? 0 : graph.pathNeighbors(current, adjacent);
+			for (int i = 0; i < count; i++) {
+				int child = adjacent[i];
+				int length = distance[current] + 1;
+				if (!buffers.isVisited(child)) {
+					buffers.visit(child);
+					parent[child] = current;
+					distance[child] = length;
+					estimate[child] = length + Math.abs(child / columns - exitRow) + Math.abs(child % columns - exitColumn);
+					heap[heapSize] = child;
+					position[child] = heapSize;
+					siftUp(heap, position, estimate, distance, heapSize++);
+				} else if (position[child] >= 0 && length < distance[child]) {		//Shorter way to a waiting cell
+					estimate[child] -= distance[child] - length;
+					distance[child] = length;
+					parent[child] = current;
+					siftUp(heap, position, estimate, distance, position[child]);
+				}
+			}
+		}
+
+		if (found) {
+			markPath(parent, exit, heap, steps);								//The heap is done with
+		}
+		MazeStats.get().recordSolve(Maze.Solver.A_STAR, expanded, System.nanoTime() - begin);
+	}
+
+	/**Returns true if cell a should leave the A* heap before cell b.*/
+	private static boolean precedes(int a, int b, int[] estimate, int[] distance) {
+		return estimate[a] < estimate[b] || (estimate[a] == estimate[b] && distance[a] > distance[b]);
+	}
+
+	/**Moves the cell at index i of the heap up until its parent precedes it.*/
+	private static void siftUp(int[] heap, int[] position, int[] estimate, int[] distance, int i) {
+		int cell = heap[i];
+		while (i > 0) {
+			int up = (i - 1) >>> 1;
+			if (!precedes(cell, heap[up], estimate, distance)) {
+				break;
+			}
+			heap[i] = heap[up];
+			position[heap[i]] = i;
+			i = up;
+		}
+		heap[i] = cell;
+		position[cell] = i;
+	}
+
+	/**Moves the cell at the top of the heap of the given size down until it precedes
+	 * both its children.*/
+	private static void siftDown(int[] heap, int[] position, int[] estimate, int[] distance, int size) {
+		int cell = heap[0];
+		int i = 0;
+		while (true) {
+			int down = 2 * i + 1;
+			if (down >= size) {
+				break;
+			}
+			if (down + 1 < size && precedes(heap[down + 1], heap[down], estimate, distance)) {
+				down++;
+			}
+			if (!precedes(heap[down], cell, estimate, distance)) {
+				break;
+			}
+			heap[i] = heap[down];
+			position[heap[i]] = i;
+			i = down;
+		}
+		heap[i] = cell;
+		position[cell] = i;
+	}
+
+	/**
+	 * Solves the graph using breadth first search from the entrance and the exit at once,
+	 * a level at a time from whichever side has the smaller frontier, until the two
+	 * searches meet. Each search covers about half the distance, so far fewer cells are
+	 * visited than by searching from the entrance alone. The two queues share one int
+	 * array, growing from either end, as each cell is queued by one side at most; a cell
+	 * reached from the exit remembers the neighbor nearer the exit as its parent.
+	 * @param graph the cells to solve, with at least one cell
+	 * @param buffers buffers with room for every cell of the graph
+	 * @param steps told of each cell dequeued by either side, then of each cell of the path
+	 *        in order from the entrance to the exit
+	 */
+	static void bidirectionalSearch(CellGraph graph, SearchBuffers buffers, MazeListener steps) {
+		long begin = System.nanoTime();
+		int start = graph.getStart();
+		int exit = graph.getExit();
+		int[] parent = buffers.parent;
+		int[] queue = buffers.cells;
+		int[] adjacent = buffers.adjacent;
+		int forwardHead = 0;													//From the entrance, growing up
+		int forwardTail = 0;
+		int backwardHead = queue.length - 1;									//From the exit, growing down
+		int backwardTail = queue.length - 1;
+		buffers.clearVisited();
+		buffers.clearFromExit();
+		buffers.visit(start);
+		parent[start] = -1;
+		queue[forwardTail++] = start;
+		int meetFromStart = -1;													//Adjacent cells where the searches met
+		int meetFromExit = -1;
+		if (start == exit) {
+			meetFromStart = start;
+			steps.cellMarked(start, Maze.TENTATIVE);
+		} else {
+			buffers.visit(exit);
+			buffers.reachFromExit(exit);
+			parent[exit] = -1;
+			queue[backwardTail--] = exit;
+		}
+
+		while (meetFromStart < 0 && forwardHead < forwardTail && backwardHead > backwardTail) {
+			if (forwardTail - forwardHead <= backwardHead - backwardTail) {		//Expand the smaller frontier
+				int levelEnd = forwardTail;
+				while (meetFromStart < 0 && forwardHead < levelEnd) {
+					int cell = queue[forwardHead++];
+					steps.cellMarked(cell, Maze.TENTATIVE);
+					int count = graph.pathNeighbors(cell, adjacent);
+					for (int i = 0; meetFromStart < 0 && i < count; i++) {
+						int child = adjacent[i];
+						if (!buffers.isVisited(child)) {
+							buffers.visit(child);
+							parent[child] = cell;
+							queue[forwardTail++] = child;
+						} else if (buffers.isFromExit(child)) {
+							meetFromStart = cell;
+							meetFromExit = child;
+						}
+					}
+				}
+			} else {
+				int levelEnd = backwardTail;
+				while (meetFromStart < 0 && backwardHead > levelEnd) {
+					int cell = queue[backwardHead--];
+					steps.cellMarked(cell, Maze.TENTATIVE);
+					int count = graph.pathNeighbors(cell, adjacent);
+					for (int i = 0; meetFromStart < 0 && i < count; i++) {
+						int child = adjacent[i];
+						if (!buffers.isVisited(child)) {
+							buffers.visit(child);
+							buffers.reachFromExit(child);
+							parent[child] = cell;
+							queue[backwardTail--] = child;
+						} else if (!buffers.isFromExit(child)) {
+							meetFromStart = child;
+							meetFromExit = cell;
+						}
+					}
+				}
+			}
+		}
+
+		if (meetFromStart >= 0) {
+			markPath(parent, meetFromStart, queue, steps);						//The queues are done with
+			for (int v = meetFromExit; v != -1; v = parent[v]) {				//Parents lead on to the exit
+				steps.cellMarked(v, Maze.PATH);
+			}
+		}
+		long expanded = forwardHead + (queue.length - 1 - backwardHead);
+		MazeStats.get().recordSolve(Maze.Solver.BIDIRECTIONAL, expanded, System.nanoTime() - begin);
+	}
+
+	/**
+	 * Solves the graph by dead-end filling, with {@link DeadEndFiller}.
+	 * @param graph the cells to solve
+	 * @return the indices of the cells of the path
+	 */
+	static BitSet deadEndFilling(CellGraph graph) {
+		long begin = System.nanoTime();
+		BitSet path = DeadEndFiller.fill(graph);
+		long filled = graph.size() - path.cardinality();
+		MazeStats.get().recordSolve(Maze.Solver.DEAD_END_FILLING, filled, System.nanoTime() - begin);
+		return path;
+	}
+
+	/**Tells the listener of each of the given cells of a path, in order of index.*/
+	static void markPath(BitSet path, MazeListener steps) {
+		for (int i = path.nextSetBit(0); i >= 0; i = path.nextSetBit(i + 1)) {
+			steps.cellMarked(i, Maze.PATH);
+		}
+	}
+
+	/**Tells the listener of each cell of the path from the entrance to the given cell, in
+	 * that order, backtracking the parents into the given scratch array to reverse them.*/
+	private static void markPath(int[] parent, int last, int[] scratch, MazeListener steps) {
+		int length = 0;
+		for (int v = last; v != -1; v = parent[v]) {
+			scratch[length++] = v;
+		}
+		while (length > 0) {
+			steps.cellMarked(scratch[--length], Maze.PATH);
+		}
+	}
+
+}
@@ -0,0 +1,103 @@
+/*	Tabitha Stein 	*
+ *	Maze Generator	*/
+
+package model;
+
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Builds a MazeGrid as a patchwork of rectangular tiles. Each tile is built as a Maze of its
+ * own by any of the generating algorithms, in parallel on the common ForkJoinPool, so each
+ * worker only touches a tile-sized working set. The tiles are then stitched together by a
+ * random spanning tree over the tiles: for each pair of neighboring tiles joined in that
+ * tree, exactly one wall along the seam between them is knocked down. Since every tile is a
+ * perfect maze and the tiles are joined without cycles, the whole grid is a perfect maze.
+ * The tiles and seams are built as parts of the Maze, so only the Maze's own build is
+ * recorded in MazeStats.
+ *
+ * @author Tabitha Stein
+ * @version 2.0
+ */
+final class TiledGenerator {
+
+	/**The number of words of the grid's passages copied by one task.*/
+	private static final int CHUNK = 1 << 12;
+
+	private TiledGenerator() {
+	}
+
+	/**
+	 * Knocks down the walls of a perfect maze over the given grid, whose walls must all be
+	 * standing.
+	 * @param grid the grid to build
+	 * @param algorithm the algorithm each tile is built with
+	 * @param tileRows the number of rows of cells in a tile, except at the bottom edge
+	 * @param tileColumns the number of columns of cells in a tile, except at the right edge
+	 * @param randy the source of the seeds for the tiles and of the positions of the seams'
+	 *        passages; only used on the calling thread
+	 */
+	static void build(MazeGrid grid, Maze.Algorithm algorithm, int tileRows, int tileColumns,
+			SplittableRandom randy) {
+		int rows = grid.rows();
+		int columns = grid.columns();
+		int tilesDown = (rows + tileRows - 1) / tileRows;
+		int tilesAcross = (columns + tileColumns - 1) / tileColumns;
+		if (grid.size() == 0) {
+			return;
+		}
+
+		long[] seeds = new long[tilesDown * tilesAcross];
+		for (int t = 0; t < seeds.length; t++) {
+			seeds[t] = randy.nextLong();
+		}
+		MazeGrid[] tiles = new MazeGrid[seeds.length];
+		IntStream.range(0, tiles.length).parallel().forEach(t -> {
+			int height = Math.min(tileRows, rows - (t / tilesAcross) * tileRows);
+			int width = Math.min(tileColumns, columns - (t % tilesAcross) * tileColumns);
+			Maze tile = Maze.part(height, width, seeds[t]);
+			tile.generate(algorithm);
+			tiles[t] = tile.getGrid();
+		});
+
+		//Copy the tiles into the grid a word of 32 cells at a time, so no two tasks write
+		//the same word
+		int size = grid.size();
+		int words = (int) (((long) size * 2 + 63) >>> 6);
+		IntStream.range(0, (words + CHUNK - 1) / CHUNK).parallel().forEach(chunk -> {
+			for (int w = chunk * CHUNK, end = Math.min(words, w + CHUNK); w < end; w++) {
+				long bits = 0L;
+				for (int i = w << 5, last = Math.min(size, (w + 1) << 5); i < last; i++) {
+					int row = i / columns;
+					int column = i % columns;
+					MazeGrid tile = tiles[(row / tileRows) * tilesAcross + column / tileColumns];
+					int local = (row % tileRows) * tile.columns() + column % tileColumns;
+					int shift = (i & 31) << 1;
+					if (tile.isOpenEast(local)) { bits |= 1L << shift; }
+					if (tile.isOpenSouth(local)) { bits |= 2L << shift; }
+				}
+				grid.setPassageWord(w, bits);
+			}
+		});
+
+		//Stitch the tiles along the passages of a maze with one cell per tile
+		Maze seams = Maze.part(tilesDown, tilesAcross, randy.nextLong());
+		seams.unionFindKruskal();
+		MazeGrid tree = seams.getGrid();
+		for (int t = 0; t < tree.size(); t++) {
+			int top = (t / tilesAcross) * tileRows;
+			int left = (t % tilesAcross) * tileColumns;
+			if (tree.isOpenEast(t)) {
+				int row = top + randy.nextInt(Math.min(tileRows, rows - top));
+				int cell = row * columns + left + tileColumns - 1;
+				grid.openWall(cell, cell + 1);
+			}
+			if (tree.isOpenSouth(t)) {
+				int column = left + randy.nextInt(Math.min(tileColumns, columns - left));
+				int cell = (top + tileRows - 1) * columns + column;
+				grid.openWall(cell, cell + columns);
+			}
+		}
+	}
+
+}
@@ -24,8 +24,10 @@ import javax.swing.event.ChangeListener;
 public class MazeCustomizationPanel extends JPanel {
 
 	private final static int INIT_DIM = 5;
-	private final static int MAX_DIM = 30;
+	private final static int MAX_DIM = 5000;
 	public final static String KRUSKAL = "Kruskal's Algorithm";
+	public final static String UNION_FIND_KRUSKAL = "Kruskal's Algorithm (Union-Find)";
+	public final static String PARALLEL_BORUVKA = "Boruvka's Algorithm (Parallel)";
 	public final static String PRIM = "Prim's Algorithm";
 	
 	/**Holds the latest selection on Maze width.*/
@@ -49,7 +51,7 @@ public class MazeCustomizationPanel extends JPanel {
 		
 		mazeWid = INIT_DIM;
 		mazeHei = INIT_DIM;	
-		mazeAlg = KRUSKAL;
+		mazeAlg = UNION_FIND_KRUSKAL;										//Near linear, for large Mazes
 
 		
 		JLabel dimensionsLabel = new JLabel("Dimensions:");
@@ -79,9 +81,9 @@ public class MazeCustomizationPanel extends JPanel {
 		JPanel algPanel = new JPanel();
 		JLabel algLabel = new JLabel("Select Build Algorithm:");
 		algPanel.setLayout(new GridLayout(2, 2));
-		String[] algStrings = {KRUSKAL, PRIM};
+		String[] algStrings = {KRUSKAL, UNION_FIND_KRUSKAL, PARALLEL_BORUVKA, PRIM};
 		JComboBox<String> algList = new JComboBox<String>(algStrings);
-		algList.setSelectedIndex(0);
+		algList.setSelectedItem(mazeAlg);
 		algList.addActionListener(new ActionListener() {
 
 			@Override
@@ -4,16 +4,21 @@
 package view;
 
 import java.awt.BorderLayout;
+import java.awt.Dimension;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.GridLayout;
+import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Observable;
-import java.util.Observer;
+import java.awt.event.MouseWheelEvent;
+import java.awt.event.MouseWheelListener;
+import java.util.ArrayDeque;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.swing.ButtonGroup;
 import javax.swing.JButton;
@@ -26,27 +31,66 @@ import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JRadioButton;
+import javax.swing.JScrollPane;
 import javax.swing.JSlider;
+import javax.swing.JViewport;
+import javax.swing.SwingUtilities;
 import javax.swing.Timer;
 import javax.swing.WindowConstants;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
 
+import model.CellGraph;
 import model.Maze;
+import model.MazeEventQueue;
+import model.MazeGrid;
+import model.MazeListener;
 
-public class MazeGUI implements Observer {
+public class MazeGUI {
 	
 	private static final String DEPTH_FIRST = "Depth-First Search";
 	private static final String BREADTH_FIRST = "Breadth-First Search";
+	private static final String A_STAR = "A* Search";
+	private static final String BIDIRECTIONAL = "Bidirectional Search";
 	private static final int FPS_MIN = 10;
 	private static final int FPS_MAX = 500;
 	private static final int FPS_INIT = 350;
 	
-	/**List holding each phase in Maze generation.*/
-	private List<char[][]> mazeArrs;
+	/**The largest number of cells in a Maze whose building and solving are played back
+	 * step by step; larger Mazes would take hours to play, so are displayed as soon as
+	 * they are built or solved.*/
+	private static final int ANIMATION_LIMIT = 250000;
 	
-	/**List holding each phase in solving Maze.*/
-	private List<char[][]> pathArrs;
+	/**The number of changes the worker thread can get ahead of playback by.*/
+	private static final int QUEUE_CAPACITY = 1 << 14;
+	
+	/**The zoom level new Mazes are shown at, if they fit.*/
+	private static final int DEFAULT_ZOOM = 3;
+	
+	/**The size of the area the Maze is viewed through when the window opens.*/
+	private static final Dimension VIEW_SIZE = new Dimension(800, 600);
+	
+	/**Builds and solves Mazes one after another, away from the Event Dispatch Thread.*/
+	private final ExecutorService myWorker = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "Maze worker");
+		thread.setDaemon(true);
+		return thread;
+	});
+	
+	/**The queues streaming the changes of the jobs given to myWorker, in order; the first
+	 * is the one being played back.*/
+	private final ArrayDeque<MazeEventQueue> myPlayback = new ArrayDeque<>();
+	
+	/**The number of queues at the front of myPlayback to skip to the end of rather than
+	 * play back step by step.*/
+	private int mySkipped;
+	
+	/**The Maze as of the last change played back, or null if the Maze is too large to
+	 * be played back and is displayed as a copy made after each job.*/
+	private MazeGrid myReplica;
+	
+	/**Applies played back changes to myReplica and shows them on myPanel.*/
+	private PanelUpdater myUpdater;
 	
 	/**The current Maze.*/
 	private Maze myMaze;
@@ -60,6 +104,9 @@ public class MazeGUI implements Observer {
 	/**The panel for displaying the Maze.*/
 	private MazePanel myPanel;
 	
+	/**Scrolls myPanel when it is larger than the window.*/
+	private JScrollPane myScrollPane;
+	
 	/**The timer currently running to display steps in generating or solving the Maze.*/
 	private Timer myStepTimer;
 	
@@ -92,16 +139,18 @@ public class MazeGUI implements Observer {
 		setUpNewButton();
 		setupSolveSelect();
 		setUpSlider();
+		setUpTimer();
 		introMaze();
 		setupMenu();
 		
 		GridBagConstraints panelC = new GridBagConstraints();
 		panelC.anchor = GridBagConstraints.CENTER;
+		panelC.fill = GridBagConstraints.BOTH;
+		panelC.weightx = 1;
+		panelC.weighty = 1;
 		panelC.gridwidth = 2;
 		panelC.gridy = 0;
-		contentPane.add(myPanel, panelC);
-		
-		setupBuildTimer();
+		contentPane.add(myScrollPane, panelC);
 		
 		JPanel myBuildPanel = new JPanel();
 		myBuildPanel.setLayout(new GridLayout(1, 2));
@@ -116,46 +165,168 @@ public class MazeGUI implements Observer {
 		contentPane.add(myBuildPanel, buildC);
 				
 		myFrame.setContentPane(contentPane);		
-		myFrame.setResizable(false);
+		myFrame.setResizable(true);
 		myFrame.pack();
 		myFrame.setLocationRelativeTo(null);
 		myFrame.setVisible(true);
-		
-        myStepTimer.start();
 	}
 	
 	/**
 	 * Sets up the Maze generated when application starts.
 	 */
 	private void introMaze() {
-		mazeArrs = new LinkedList<char[][]>();
-		pathArrs = new LinkedList<char[][]>();
 		myMaze = new Maze(15, 15);
-		myMaze.addObserver(this);
-		myMaze.prim();
-		myPanel = new MazePanel(mazeArrs.get(0), 10);
+		startRecording();
+		myPanel = new MazePanel(displayedCells(), DEFAULT_ZOOM);
+		myPanel.setZoom(myPanel.fitZoom(VIEW_SIZE, DEFAULT_ZOOM));
+		setUpScrollPane();
+		runInBackground(myMaze::prim);
+	}
+	
+	/**
+	 * Puts myPanel in a scroll pane, where holding Control while turning the mouse wheel
+	 * zooms in and out around the mouse pointer.
+	 */
+	private void setUpScrollPane() {
+		myScrollPane = new JScrollPane(myPanel);
+		myScrollPane.setPreferredSize(VIEW_SIZE);
+		myScrollPane.getVerticalScrollBar().setUnitIncrement(16);
+		myScrollPane.getHorizontalScrollBar().setUnitIncrement(16);
+		myPanel.addMouseWheelListener(new MouseWheelListener() {
+			@Override
+			public void mouseWheelMoved(MouseWheelEvent e) {
+				if (e.isControlDown()) {
+					zoom(e.getWheelRotation() < 0 ? 1 : -1, e.getPoint());
+				} else {														//Scroll as if not listened to
+					myScrollPane.dispatchEvent(SwingUtilities.convertMouseEvent(myPanel, e, myScrollPane));
+				}
+			}
+		});
+	}
+	
+	/**
+	 * Zooms myPanel in or out by the given number of levels, keeping the given point of
+	 * it where it is in the view.
+	 */
+	private void zoom(int levels, Point point) {
+		int oldZoom = myPanel.getZoom();
+		myPanel.setZoom(oldZoom + levels);
+		int change = myPanel.getZoom() - oldZoom;
+		if (change != 0) {
+			JViewport viewport = myScrollPane.getViewport();
+			Point view = viewport.getViewPosition();
+			double factor = Math.pow(2, change);
+			int x = (int) (point.x * factor) - (point.x - view.x);
+			int y = (int) (point.y * factor) - (point.y - view.y);
+			myScrollPane.validate();
+			viewport.setViewPosition(new Point(Math.max(0, x), Math.max(0, y)));
+		}
+	}
+	
+	/**
+	 * Zooms myPanel in or out by the given number of levels around the middle of the view.
+	 */
+	private void zoomAroundCenter(int levels) {
+		Rectangle view = myScrollPane.getViewport().getViewRect();
+		zoom(levels, new Point(view.x + view.width / 2, view.y + view.height / 2));
+	}
+	
+	/**
+	 * Returns the cells for myPanel to display: the replica changes are played back onto,
+	 * or, when the Maze is not played back, a blank grid until the worker thread has a copy
+	 * of the built Maze to show. The panel never reads the cells the worker thread writes.
+	 */
+	private CellGraph displayedCells() {
+		return myReplica != null ? myReplica : myMaze.createBlankGrid();
+	}
+	
+	/**
+	 * Prepares to play back the changes made to the new, unbuilt myMaze onto a display of
+	 * it with every wall standing, unless it is too large to be played back.
+	 */
+	private void startRecording() {
+		if ((long) myMaze.getRows() * myMaze.getColumns() <= ANIMATION_LIMIT) {
+			myReplica = myMaze.createBlankGrid();
+		} else {
+			myReplica = null;
+		}
+		myUpdater = new PanelUpdater(myMaze.getColumns());
+	}
+	
+	/**
+	 * Runs the given algorithm on myMaze on the worker thread, after any jobs already given
+	 * to it. The changes it makes are streamed through a bounded queue and played back by
+	 * myStepTimer as they arrive; if the Maze is too large to be played back, nothing is
+	 * queued and the worker thread hands a copy of the Maze to the panel once the
+	 * algorithm is done.
+	 */
+	private void runInBackground(Runnable algorithm) {
+		Maze maze = myMaze;
+		boolean replayed = myReplica != null;
+		MazeEventQueue queue = new MazeEventQueue(QUEUE_CAPACITY);
+		MazeListener listener = replayed ? queue : new CancellationCheck(queue);
+		myPlayback.add(queue);
+		myWorker.execute(() -> {
+			if (queue.isCancelled()) {
+				return;
+			}
+			maze.addMazeListener(listener);
+			try {
+				algorithm.run();
+				if (!replayed) {
+					CellGraph cells = maze.copyCells();
+					SwingUtilities.invokeLater(() -> showCopy(maze, cells));
+				}
+			} catch (CancellationException e) {
+				//Abandoned for a newer Maze
+			} finally {
+				maze.removeMazeListener(listener);
+				queue.close();
+			}
+		});
+		myStepTimer.start();
+	}
+	
+	/**
+	 * Displays a copy of the given Maze made by the worker thread, unless it has since been
+	 * replaced by a new Maze.
+	 */
+	private void showCopy(Maze maze, CellGraph cells) {
+		if (maze == myMaze) {
+			myPanel.setCells(cells);
+		}
 	}
 	
 	/**
-	 * Builds a new Maze using the given dimensions and algorithm.
+	 * Builds a new Maze using the given dimensions and algorithm, abandoning the building
+	 * or solving of the current one.
 	 */
 	private void newMaze(int rows, int columns, String alg) {
 		myStepTimer.stop();
-		myMaze.deleteObserver(this);
-		mazeArrs 	= new LinkedList<char[][]>();
-		pathArrs 	= new LinkedList<char[][]>();
+		for (MazeEventQueue queue : myPlayback) {
+			queue.cancel();
+		}
+		myPlayback.clear();
+		mySkipped = 0;
+		myStepTimer.setDelay(mySlider.getValue());
 		myMaze 		= new Maze(rows, columns);
-		myMaze.addObserver(this);
+		startRecording();
+		Maze.Algorithm algorithm;
 		switch (alg) {
-			case MazeCustomizationPanel.PRIM 	: 	myMaze.prim();
+			case MazeCustomizationPanel.PRIM 	: 	algorithm = Maze.Algorithm.PRIM;
+													break;
+			case MazeCustomizationPanel.KRUSKAL	: 	algorithm = Maze.Algorithm.KRUSKAL;
 													break;
-			default								: 	myMaze.kruskal();
+			case MazeCustomizationPanel.PARALLEL_BORUVKA	: 	algorithm = Maze.Algorithm.PARALLEL_BORUVKA;
+													break;
+			default								: 	algorithm = Maze.Algorithm.UNION_FIND_KRUSKAL;
 													break;
 		}
-		//myMaze.prim();
-		myPanel.setDisplayArr(mazeArrs.get(0));
-		myPanel.setOverlayArr(new char[mazeArrs.get(0).length][mazeArrs.get(0)[0].length]);
-		myFrame.pack();
+		Maze maze = myMaze;
+		runInBackground(() -> maze.generate(algorithm));
+		myPanel.setCells(displayedCells());
+		myPanel.setZoom(myPanel.fitZoom(myScrollPane.getViewport().getExtentSize(), DEFAULT_ZOOM));
+		myScrollPane.getViewport().setViewPosition(new Point(0, 0));
 	}
 	
 	/**
@@ -169,7 +340,8 @@ public class MazeGUI implements Observer {
         final JMenuItem help 	= new JMenuItem("Help...");
         String helpInfo 		= "Create: To create a new Maze, click Create and chose dimensions and algorithm.\n"
         						+ "Solve: To solve the Maze, select one of the \n"
-        						+ "solving algorithms from menu on the right and hit 'Solve.'";      
+        						+ "solving algorithms from menu on the right and hit 'Solve.'\n"
+        						+ "Zoom: Use the Zoom buttons, or hold Control and turn the mouse wheel.";      
         help.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(final ActionEvent theEvent) {
@@ -217,13 +389,9 @@ public class MazeGUI implements Observer {
 
 			@Override
 			public void actionPerformed(ActionEvent e) {
-				myStepTimer.stop();
 				newMaze(dialogPanel.getMazehei(), dialogPanel.getMazeWid(), dialogPanel.getMazeAlg());
 				myCustomizeDialog.dispose();
-				myPanel.revalidate();
-				myFrame.pack();
-				setupBuildTimer();
-				myStepTimer.start();
+				myScrollPane.revalidate();
 			}
 			
 		});	
@@ -251,6 +419,22 @@ public class MazeGUI implements Observer {
                 FPS_MIN, FPS_MAX, FPS_INIT);
 		mySliderPanel.add(mySliderLabel);
 		mySliderPanel.add(mySlider);
+		JButton zoomIn = new JButton("Zoom In");
+		zoomIn.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				zoomAroundCenter(1);
+			}
+		});
+		JButton zoomOut = new JButton("Zoom Out");
+		zoomOut.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				zoomAroundCenter(-1);
+			}
+		});
+		mySliderPanel.add(zoomIn);
+		mySliderPanel.add(zoomOut);
 		mySlider.setMajorTickSpacing(50);
 		mySlider.setPaintTicks(true);
 		mySlider.setInverted(true);
@@ -266,7 +450,9 @@ public class MazeGUI implements Observer {
 			@Override
 			public void stateChanged(ChangeEvent e) {
 				int fps = (int) ((JSlider)e.getSource()).getValue();
-				myStepTimer.setDelay(fps);
+				if (mySkipped == 0) {
+					myStepTimer.setDelay(fps);
+				}
 			}
 			
 		});
@@ -277,10 +463,12 @@ public class MazeGUI implements Observer {
 	 */
 	private void setupSolveSelect() {
 		mySolveSelectPanel = new JPanel();
-		mySolveSelectPanel.setLayout(new GridLayout(3, 1));
-		JRadioButton solveButtons[] = new JRadioButton[2];
+		mySolveSelectPanel.setLayout(new GridLayout(5, 1));
+		JRadioButton solveButtons[] = new JRadioButton[4];
 		solveButtons[0] = new JRadioButton(DEPTH_FIRST);		
 		solveButtons[1] = new JRadioButton(BREADTH_FIRST);		
+		solveButtons[2] = new JRadioButton(A_STAR);		
+		solveButtons[3] = new JRadioButton(BIDIRECTIONAL);		
 		ButtonGroup group = new ButtonGroup();
 		for (JRadioButton b : solveButtons) {
 			group.add(b);
@@ -292,17 +480,21 @@ public class MazeGUI implements Observer {
 			public void actionPerformed(ActionEvent e) {
 				for (JRadioButton b : solveButtons) {
 					if (b.isSelected()) {
-						pathArrs = new LinkedList<char[][]>();
-						myStepTimer.stop();
-						myPanel.setDisplayArr(mazeArrs.get(mazeArrs.size() - 1));
-						
-						if (b.getText().equals(DEPTH_FIRST)) {
-							myMaze.depthFirstSearch();
-						} else {
-							myMaze.breadthFirstSearch();
+						mySkipped = myPlayback.size();						//Skip to the finished Maze
+						if (mySkipped > 0) {
+							myStepTimer.setDelay(1);
+						}
+						Maze maze = myMaze;
+						switch (b.getText()) {
+							case DEPTH_FIRST	:	runInBackground(maze::depthFirstSearch);
+													break;
+							case A_STAR			:	runInBackground(maze::aStar);
+													break;
+							case BIDIRECTIONAL	:	runInBackground(maze::bidirectionalSearch);
+													break;
+							default				:	runInBackground(maze::breadthFirstSearch);
+													break;
 						}
-						setupSolveTimer();
-						myStepTimer.start();
 					}
 				}
 			}			
@@ -312,60 +504,141 @@ public class MazeGUI implements Observer {
 	}
 	
 	/**
-	 * Sets up a new timer to display the steps of the current Maze.
+	 * Sets up the timer that plays back the steps of building and solving the Maze.
 	 */
-	private void setupBuildTimer() {
+	private void setUpTimer() {
         myStepTimer = new Timer(mySlider.getValue(), new ActionListener() {     
-        	int nextArr = 1;
             @Override
             public void actionPerformed(final ActionEvent theEvent) {
-            	if (nextArr < mazeArrs.size()) {
-            		myPanel.setDisplayArr(mazeArrs.get(nextArr));
-            		nextArr++;
-                } else {
-                	myStepTimer.stop();
-                }
+            	playStep();
             }            
         });  
         myStepTimer.setRepeats(true);
 	}
-	
+
 	/**
-	 * Sets up a new timer to display the steps of the current Maze.
+	 * Skips through the queues to be skipped, then plays back queued changes until one
+	 * that can be seen has been applied; myUpdater repaints the cells that changed. Moves
+	 * on to the next queue as each one is finished, and stops myStepTimer once every job
+	 * is done. Returns without waiting when the worker thread has yet to catch up.
 	 */
-	private void setupSolveTimer() {
-		myStepTimer = new Timer(mySlider.getValue(), new ActionListener() {       
-        	
-        	int nextArr = 1;
+	private void playStep() {
+		while (mySkipped > 0) {
+			MazeEventQueue queue = myPlayback.peek();
+			if (myReplica != null) {
+				queue.drain(myReplica, Integer.MAX_VALUE);
+			}
+			if (!queue.isFinished()) {
+				return;
+			}
+			myPlayback.remove();
+			if (--mySkipped == 0) {
+				myPanel.cellsChanged();
+				myStepTimer.setDelay(mySlider.getValue());
+			}
+		}
+		myUpdater.changed = false;
+		while (!myUpdater.changed && !myPlayback.isEmpty()) {
+			MazeEventQueue queue = myPlayback.peek();
+			if (queue.drain(myUpdater, 1) == 0) {
+				if (!queue.isFinished()) {
+					return;
+				}
+				myPlayback.remove();
+			}
+		}
+		if (myPlayback.isEmpty()) {
+			myStepTimer.stop();
+		}
+	}
+
+	/**
+	 * Abandons the algorithm it listens to once its queue has been cancelled, for Mazes
+	 * whose changes are not queued.
+	 */
+	private static class CancellationCheck implements MazeListener {
+
+		/**The queue whose cancellation to check for.*/
+		private final MazeEventQueue queue;
+
+		private CancellationCheck(MazeEventQueue theQueue) {
+			queue = theQueue;
+		}
+
+		/**Throws a CancellationException if the queue has been cancelled.*/
+		private void check() {
+			if (queue.isCancelled()) {
+				throw new CancellationException();
+			}
+		}
+
+		@Override
+		public void wallRemoved(int cellA, int cellB) {
+			check();
+		}
+
+		@Override
+		public void cellMarked(int cell, char marker) {
+			check();
+		}
+
+		@Override
+		public void buildFinished() {
+			check();
+		}
+
+		@Override
+		public void pathCleared() {
+			check();
+		}
 
-            @Override
-            public void actionPerformed(final ActionEvent theEvent) {
-            	if (nextArr < pathArrs.size()) {
-            		myPanel.setOverlayArr(pathArrs.get(nextArr));
-            		nextArr++;
-                } else {
-                	myStepTimer.stop();
-                }
-            }
-            
-        });   
-        
-        myStepTimer.setRepeats(true);
 	}
 
 	/**
-	 * Updates the list of states in maze generation and solving the maze.
+	 * Applies the changes made to the Maze to myReplica, one cell at a time, and has
+	 * myPanel redraw what changed.
 	 */
-	@Override
-	public void update(Observable o, Object arg) {
-		if (o instanceof Maze) {
-			Maze m = (Maze) o;
-			if (!m.getBuilt()) {
-				mazeArrs.add(m.getMazeArr());
-			} else {
-				pathArrs.add(m.getPathArr());
+	private class PanelUpdater implements MazeListener {
+
+		/**The number of columns of cells in the Maze.*/
+		private final int columns;
+
+		/**Set when a change that can be seen on the panel has been applied.*/
+		private boolean changed;
+
+		private PanelUpdater(int theColumns) {
+			columns = theColumns;
+		}
+
+		@Override
+		public void wallRemoved(int cellA, int cellB) {
+			myReplica.wallRemoved(cellA, cellB);
+			//The wall sits between the two cells, which are two display positions apart
+			myPanel.positionChanged(cellA / columns + cellB / columns + 1, cellA % columns + cellB % columns + 1);
+			changed = true;
+		}
+
+		@Override
+		public void cellMarked(int cell, char marker) {
+			myReplica.cellMarked(cell, marker);
+			if (marker != Maze.VISITED) {										//Visited cells look unvisited
+				myPanel.positionChanged((cell / columns) * 2 + 1, (cell % columns) * 2 + 1);
+				changed = true;
 			}
 		}
+
+		@Override
+		public void buildFinished() {
+			myReplica.buildFinished();
+		}
+
+		@Override
+		public void pathCleared() {
+			myReplica.pathCleared();
+			myPanel.cellsChanged();
+			changed = true;
+		}
+
 	}
 
 }
@@ -3,99 +3,372 @@ package view;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
-import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.IndexColorModel;
+import java.util.Arrays;
+import java.util.stream.IntStream;
 
 import javax.swing.JPanel;
 
+import model.CellGraph;
 import model.Maze;
 
-/**A panel that displays given char arrays as the current state
- * of a Maze.*/
+/**A panel that displays the cells of a Maze, as rendered by
+ * {@link CellGraph#renderPosition(int, int)}, at a zoom level that is a power of two.
+ * Zoomed in, each position of the display is a square of pixels and only the positions
+ * inside the area being repainted are rendered, into a reused image the size of that area,
+ * so the cost of a frame depends on the size of the viewport rather than the size of the
+ * Maze. Zoomed out, each pixel stands for a
+ * square block of positions: an image of the whole Maze at that level of detail is built
+ * once, coloured by the path markings in each block or else by its share of walls, and
+ * only the blocks reported by {@link #positionChanged(int, int)} are updated after that.*/
 public class MazePanel extends JPanel {
 
-	private final int myCellSize;
-	
-	private char[][] myDispArr;
-	
-	private char[][] myOverlayArr;
-	
-	private Color wallColor;
-	
-	private Color pathColor;
-	
-	private Color tentativeColor;
-	
-	private Color visitedColor;
-	
+	static final Color WALL_COLOR = Color.BLACK;
+
+	static final Color PATH_COLOR = Color.RED.darker().darker();
+
+	static final Color TENTATIVE_COLOR = new Color(0, 0, 0, 100);
+
+	static final Color VISITED_COLOR = Color.WHITE;
+
+	/**The highest zoom level: each position is 2^MAX_ZOOM pixels square.*/
+	public static final int MAX_ZOOM = 5;
+
+	/**The lowest zoom level: each pixel is 2^-MIN_ZOOM positions square.*/
+	public static final int MIN_ZOOM = -6;
+
+	/**Palette index of open positions in the level of detail image.*/
+	private static final int OPEN = 0;
+
+	/**Palette index of walls in the level of detail image.*/
+	private static final int WALL = 1;
+
+	/**Palette index of blocks on the path in the level of detail image.*/
+	private static final int PATH = 2;
+
+	/**Palette index of blocks with tentative steps in the level of detail image.*/
+	private static final int TENTATIVE = 3;
+
+	/**The number of shades of grey between open and wall for blocks with some walls.*/
+	private static final int GREYS = 6;
+
+	/**The number of rows of the level of detail image rendered by one task.*/
+	private static final int LOD_BAND = 16;
+
+	/**The colours of the level of detail image.*/
+	private static final IndexColorModel LOD_COLORS = createLodColors();
+
+	/**The cells displayed.*/
+	private CellGraph myCells;
+
+	/**The current zoom level, from MIN_ZOOM to MAX_ZOOM.*/
+	private int myZoom;
+
+	/**The whole Maze at the current zoom level when it is below 0, or null until needed.*/
+	private BufferedImage myLod;
+
+	/**Holds the area being repainted when zoomed in, reused from one paint to the next.*/
+	private BufferedImage myView;
+
 	/**
-	 * Accepts the dimensions of the Maze to display
+	 * Accepts the cells of the Maze to display and the zoom level to display them at.
 	 */
-	public MazePanel(char[][] theDisplayArray, int theCellSize) {
-		myCellSize = theCellSize;
-		myDispArr = theDisplayArray;
-		myOverlayArr = new char[myDispArr.length][myDispArr[0].length];
-		wallColor = Color.BLACK;		
-		pathColor = Color.RED.darker().darker();	
-		tentativeColor = new Color(0, 0, 0, 100);	
-		visitedColor = Color.WHITE;
-		this.setPreferredSize(new Dimension(myDispArr[0].length * myCellSize, myDispArr.length * myCellSize));
-		this.setMinimumSize(new Dimension(myDispArr[0].length * myCellSize, myDispArr.length * myCellSize));
-		this.setMaximumSize(new Dimension(myDispArr[0].length * myCellSize, myDispArr.length * myCellSize));
-		this.setBackground(visitedColor);
-		repaint();
+	public MazePanel(CellGraph theCells, int theZoom) {
+		myCells = theCells;
+		myZoom = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, theZoom));
+		this.setBackground(VISITED_COLOR);
+		this.setOpaque(true);
+		resize();
 	}
-	
-	public void setDisplayArr(char[][] theDisplayArray) {
-		myDispArr = theDisplayArray;
-		this.setPreferredSize(new Dimension(myDispArr[0].length * myCellSize, myDispArr.length * myCellSize));
-		this.setMinimumSize(new Dimension(myDispArr[0].length * myCellSize, myDispArr.length * myCellSize));
-		this.setMaximumSize(new Dimension(myDispArr[0].length * myCellSize, myDispArr.length * myCellSize));
-		repaint();
-		revalidate();
+
+	/**
+	 * Displays the given cells instead, keeping the zoom level.
+	 */
+	public void setCells(CellGraph theCells) {
+		myCells = theCells;
+		resize();
+		cellsChanged();
 	}
-	
-	public void setOverlayArr(char[][] overlayArr) {
-		myOverlayArr = overlayArr;
+
+	/**Returns the zoom level: positive levels enlarge, negative levels shrink.*/
+	public int getZoom() {
+		return myZoom;
+	}
+
+	/**
+	 * Changes the zoom level, clamped to MIN_ZOOM and MAX_ZOOM.
+	 * @param theZoom the zoom level
+	 */
+	public void setZoom(int theZoom) {
+		int zoom = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, theZoom));
+		if (zoom != myZoom) {
+			myZoom = zoom;
+			myLod = null;
+			resize();
+			repaint();
+		}
+	}
+
+	/**
+	 * Returns the highest zoom level, up to the given one, at which the whole Maze fits in
+	 * the given size.
+	 */
+	public int fitZoom(Dimension theSize, int theMaxZoom) {
+		int zoom = theMaxZoom;
+		while (zoom > MIN_ZOOM && (pixels(lines(), zoom) > theSize.height
+				|| pixels(columns(), zoom) > theSize.width)) {
+			zoom--;
+		}
+		return zoom;
+	}
+
+	/**
+	 * Redraws the given position of the display after it has changed, repainting just
+	 * the part of the panel showing it.
+	 * @param m the line of the position
+	 * @param n the column of the position
+	 */
+	public void positionChanged(int m, int n) {
+		if (myZoom >= 0) {
+			int scale = 1 << myZoom;
+			repaint(n * scale, m * scale, scale, scale);
+		} else if (myLod != null) {
+			int shift = -myZoom;
+			updateLod(m >> shift, n >> shift);
+			repaint(n >> shift, m >> shift, 1, 1);
+		}
+	}
+
+	/**Redraws the whole display after any number of its positions have changed.*/
+	public void cellsChanged() {
+		myLod = null;
 		repaint();
-		
 	}
-	
+
+	/**Returns the number of lines of the display.*/
+	private int lines() {
+		return myCells.rows() * 2 + 1;
+	}
+
+	/**Returns the number of columns of the display.*/
+	private int columns() {
+		return myCells.columns() * 2 + 1;
+	}
+
+	/**Returns the number of pixels the given number of positions take at the given zoom.*/
+	private static long pixels(int positions, int zoom) {
+		return zoom >= 0 ? (long) positions << zoom : ((long) positions + (1 << -zoom) - 1) >> -zoom;
+	}
+
+	/**Sizes the panel to the display at the current zoom level.*/
+	private void resize() {
+		Dimension size = new Dimension((int) Math.min(Integer.MAX_VALUE, pixels(columns(), myZoom)),
+				(int) Math.min(Integer.MAX_VALUE, pixels(lines(), myZoom)));
+		if (!size.equals(getPreferredSize())) {
+			this.setPreferredSize(size);
+			this.setMinimumSize(size);
+			this.setMaximumSize(size);
+			revalidate();
+		}
+	}
+
     @Override
     public void paintComponent(final Graphics theGraphics) {
         super.paintComponent(theGraphics);
-        final Graphics2D graphics2D = (Graphics2D) theGraphics;
-        
-        for (int m = 0; m < myOverlayArr.length; m++) {
-        	for (int n = 0; n < myOverlayArr[m].length; n++) {
-        		char cell = myOverlayArr[m][n];
-        		if (cell == 0) {
-        			cell = myDispArr[m][n];
-        		}
-        		switch (cell) {
-	        		case Maze.WALL : graphics2D.setPaint(wallColor);
-	        			break;
-	        		case Maze.VISITED : graphics2D.setPaint(visitedColor);
-	        			break;
-	        		case ' ' : graphics2D.setPaint(visitedColor);
-	        			break;
-	        		case Maze.TENTATIVE : graphics2D.setPaint(tentativeColor);
-	        			break;
-	        		case Maze.PATH : graphics2D.setPaint(pathColor);
-	        			break;
-	        		default : graphics2D.setPaint(wallColor);
-	        			break;
-        		}
-        		if (cell == Maze.PATH || cell == Maze.TENTATIVE) {
-        			graphics2D.fillRect(n * myCellSize + myCellSize/4, m * myCellSize + myCellSize/4,
-        					myCellSize/2, myCellSize/2);
-        		} else {
-	        		graphics2D.fillRect(n * myCellSize, m * myCellSize,
-	        				myCellSize, myCellSize);
-        		}
+        if (myZoom < 0) {
+        	if (myLod == null) {
+        		myLod = buildLod();
         	}
-        }        
-        
-        
+        	theGraphics.drawImage(myLod, 0, 0, null);						//Clipped to the dirty region
+        	return;
+        }
+        Rectangle clip = theGraphics.getClipBounds();
+        if (clip == null) {
+        	clip = new Rectangle(getSize());
+        }
+        clip = clip.intersection(new Rectangle(getPreferredSize()));
+        if (clip.isEmpty()) {
+        	return;
+        }
+        if (myView == null || myView.getWidth() < clip.width || myView.getHeight() < clip.height) {
+        	myView = new BufferedImage(Math.max(clip.width, 256), Math.max(clip.height, 256),
+        			BufferedImage.TYPE_BYTE_INDEXED, LOD_COLORS);
+        }
+        renderView(clip);
+        theGraphics.drawImage(myView, clip.x, clip.y, clip.x + clip.width, clip.y + clip.height,
+        		0, 0, clip.width, clip.height, null);
     }
-	
+
+	/**Renders the part of the display inside the given area of the panel, zoomed in, into
+	 * the top left of myView.*/
+	private void renderView(Rectangle clip) {
+		byte[] pixels = ((DataBufferByte) myView.getRaster().getDataBuffer()).getData();
+		int stride = myView.getWidth();
+		int zoom = myZoom;
+		int scale = 1 << zoom;
+		int markerStart = scale / 4;
+		int markerEnd = markerStart + Math.max(1, scale / 2);
+		int firstColumn = clip.x >> zoom;
+		int lastColumn = Math.min(columns(), (clip.x + clip.width + scale - 1) >> zoom);
+		byte[] colors = new byte[lastColumn - firstColumn];
+		byte[] outer = new byte[clip.width];											//pixel rows outside the markers
+		byte[] inner = new byte[clip.width];											//pixel rows through the markers
+		int y = 0;
+		while (y < clip.height) {
+			int m = (clip.y + y) >> zoom;
+			boolean marked = false;
+			for (int n = firstColumn; n < lastColumn; n++) {
+				char cell = myCells.renderPosition(m, n);
+				byte color = (byte) (isWall(cell) ? WALL : OPEN);
+				if ((m & 1) == 1 && (n & 1) == 1) {
+					char mark = myCells.getPathMark((m / 2) * myCells.columns() + n / 2);
+					if (mark != 0) {
+						color = (byte) (mark == Maze.PATH ? PATH : TENTATIVE);
+						marked = true;
+					}
+				}
+				colors[n - firstColumn] = color;
+			}
+			for (int x = 0; x < clip.width; x++) {
+				int px = clip.x + x;
+				byte color = colors[(px >> zoom) - firstColumn];
+				if (color == PATH || color == TENTATIVE) {
+					int offset = px & (scale - 1);
+					inner[x] = offset >= markerStart && offset < markerEnd ? color : OPEN;
+					outer[x] = OPEN;
+				} else {
+					inner[x] = outer[x] = color;
+				}
+			}
+			int lineEnd = Math.min(clip.height, ((m + 1) << zoom) - clip.y);
+			for (; y < lineEnd; y++) {
+				int offset = (clip.y + y) & (scale - 1);
+				byte[] row = marked && offset >= markerStart && offset < markerEnd ? inner : outer;
+				System.arraycopy(row, 0, pixels, y * stride, clip.width);
+			}
+		}
+	}
+
+	/**Returns true if a character of the display is painted as a wall.*/
+	private static boolean isWall(char cell) {
+		return cell != ' ' && cell != Maze.VISITED;
+	}
+
+	/**Renders the whole display at the current zoom level, a line at a time, into a new
+	 * level of detail image. Bands of pixel rows are rendered in parallel on the common
+	 * ForkJoinPool, each into its own rows of the image.*/
+	private BufferedImage buildLod() {
+		int shift = -myZoom;
+		int lines = lines();
+		int columns = columns();
+		int width = (int) pixels(columns, myZoom);
+		int height = (int) pixels(lines, myZoom);
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_INDEXED, LOD_COLORS);
+		byte[] pixels = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+		int stride = image.getWidth();
+		CellGraph cells = myCells;
+		IntStream.range(0, (height + LOD_BAND - 1) / LOD_BAND).parallel().forEach(band -> {
+			char[] line = new char[columns];
+			int[] walls = new int[width];											//Walls in each block of the pixel row
+			char[] marks = new char[width];											//The strongest marking in each block
+			for (int y = band * LOD_BAND, end = Math.min(height, y + LOD_BAND); y < end; y++) {
+				Arrays.fill(walls, 0);
+				Arrays.fill(marks, (char) 0);
+				int first = y << shift;
+				int last = Math.min(lines, first + (1 << shift));
+				for (int m = first; m < last; m++) {
+					cells.renderRow(m, line);
+					for (int n = 0; n < columns; n++) {
+						if (isWall(line[n])) {
+							walls[n >> shift]++;
+						}
+					}
+					if ((m & 1) == 1) {
+						for (int c = 0, i = (m / 2) * cells.columns(); c < cells.columns(); c++, i++) {
+							char mark = cells.getPathMark(i);
+							int x = (c * 2 + 1) >> shift;
+							if (mark == Maze.PATH || (mark == Maze.TENTATIVE && marks[x] == 0)) {
+								marks[x] = mark;
+							}
+						}
+					}
+				}
+				for (int x = 0; x < width; x++) {
+					int area = (last - first) * (Math.min(columns, (x + 1) << shift) - (x << shift));
+					pixels[y * stride + x] = (byte) lodColor(marks[x], walls[x], area);
+				}
+			}
+		});
+		return image;
+	}
+
+	/**Recolours one pixel of the level of detail image from the block of positions it
+	 * stands for.*/
+	private void updateLod(int y, int x) {
+		int shift = -myZoom;
+		int lastLine = Math.min(lines(), (y + 1) << shift);
+		int lastColumn = Math.min(columns(), (x + 1) << shift);
+		int walls = 0;
+		char marks = 0;
+		for (int m = y << shift; m < lastLine; m++) {
+			for (int n = x << shift; n < lastColumn; n++) {
+				if (isWall(myCells.renderPosition(m, n))) {
+					walls++;
+				} else if ((m & 1) == 1 && (n & 1) == 1) {
+					char mark = myCells.getPathMark((m / 2) * myCells.columns() + n / 2);
+					if (mark == Maze.PATH || (mark == Maze.TENTATIVE && marks == 0)) {
+						marks = mark;
+					}
+				}
+			}
+		}
+		int area = (lastLine - (y << shift)) * (lastColumn - (x << shift));
+		myLod.getRaster().setDataElements(x, y, new byte[] {(byte) lodColor(marks, walls, area)});
+	}
+
+	/**Returns the palette index for a block with the given strongest marking and the given
+	 * number of walls among its positions.*/
+	private static int lodColor(char mark, int walls, int area) {
+		if (mark == Maze.PATH) {
+			return PATH;
+		} else if (mark == Maze.TENTATIVE) {
+			return TENTATIVE;
+		} else if (walls == 0) {
+			return OPEN;
+		} else if (walls == area) {
+			return WALL;
+		}
+		return 4 + Math.min(GREYS - 1, walls * GREYS / area);
+	}
+
+	/**Creates the palette of the level of detail image: open, wall, path and tentative,
+	 * then greys from light to dark.*/
+	private static IndexColorModel createLodColors() {
+		Color[] colors = new Color[4 + GREYS];
+		colors[OPEN] = VISITED_COLOR;
+		colors[WALL] = WALL_COLOR;
+		colors[PATH] = PATH_COLOR;
+		int alpha = TENTATIVE_COLOR.getAlpha();
+		colors[TENTATIVE] = new Color(
+				(TENTATIVE_COLOR.getRed() * alpha + VISITED_COLOR.getRed() * (255 - alpha)) / 255,
+				(TENTATIVE_COLOR.getGreen() * alpha + VISITED_COLOR.getGreen() * (255 - alpha)) / 255,
+				(TENTATIVE_COLOR.getBlue() * alpha + VISITED_COLOR.getBlue() * (255 - alpha)) / 255);
+		for (int g = 0; g < GREYS; g++) {
+			int level = 255 - 255 * (g + 1) / (GREYS + 1);
+			colors[4 + g] = new Color(level, level, level);
+		}
+		byte[] r = new byte[colors.length];
+		byte[] gr = new byte[colors.length];
+		byte[] b = new byte[colors.length];
+		for (int i = 0; i < colors.length; i++) {
+			r[i] = (byte) colors[i].getRed();
+			gr[i] = (byte) colors[i].getGreen();
+			b[i] = (byte) colors[i].getBlue();
+		}
+		return new IndexColorModel(8, colors.length, r, gr, b);
+	}
+
 }
@@ -0,0 +1,297 @@
+/*	Tabitha Stein 	*
+ *	Maze Generator	*/
+
+package view;
+
+import java.awt.Color;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import model.CellGraph;
+import model.Maze;
+import model.MazeFile;
+
+/**
+ * Exports the cells of a Maze as a PNG image in the colours of a MazePanel, however large
+ * the Maze. The image is rendered a strip of lines at a time straight from the cells, and
+ * each strip is deflated on its own on the common ForkJoinPool; the strips are then
+ * written in order as IDAT chunks of a single zlib stream, with their checksums combined.
+ * Only a few strips are in flight at once, so memory depends on the width of the image
+ * and not on its area. Pixels are 2-bit indices into a four colour palette, and strips are
+ * deflated at the fastest level, since for the long runs of a maze it costs a third more
+ * bytes but takes a seventh of the time.
+ *
+ * @author Tabitha Stein
+ * @version 2.0
+ */
+public final class PngExporter {
+
+	/**The number of uncompressed bytes to aim for in each strip.*/
+	private static final int STRIP_BYTES = 1 << 20;
+
+	/**The bytes every PNG file starts with.*/
+	private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+	/**Palette index of open cells and passages.*/
+	private static final int OPEN = 0;
+
+	/**Palette index of walls.*/
+	private static final int WALL = 1;
+
+	/**Palette index of the path's markers.*/
+	private static final int PATH = 2;
+
+	/**Palette index of tentative steps' markers.*/
+	private static final int TENTATIVE = 3;
+
+	/**The largest prime below 2^16, the modulus of Adler-32.*/
+	private static final int ADLER_BASE = 65521;
+
+	private PngExporter() {
+	}
+
+	/**
+	 * Converts a maze file to a PNG image.
+	 * @param theArgs the maze file, the image file and optionally the size of a cell in pixels
+	 */
+	public static void main(final String[] theArgs) throws IOException {
+		if (theArgs.length < 2) {
+			System.err.println("Usage: java view.PngExporter MAZE_FILE PNG_FILE [CELL_SIZE]");
+			System.exit(2);
+		}
+		int cellSize = theArgs.length > 2 ? Integer.parseInt(theArgs[2]) : 1;
+		try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(Paths.get(theArgs[1])))) {
+			export(MazeFile.open(Paths.get(theArgs[0])), cellSize, out);
+		}
+	}
+
+	/**
+	 * Writes the given cells as a PNG image, each wall, passage and cell of the display
+	 * being a square of the given size, with path markings drawn as in a MazePanel.
+	 * @param cells the cells to export
+	 * @param cellSize the width and height in pixels of each square
+	 * @param out the stream to write the image to; not closed
+	 * @throws IOException if the stream fails
+	 */
+	public static void export(CellGraph cells, int cellSize, OutputStream out) throws IOException {
+		int lines = cells.rows() * 2 + 1;
+		long width = (cells.columns() * 2L + 1) * cellSize;
+		long height = (long) lines * cellSize;
+		if (cellSize < 1 || width > Integer.MAX_VALUE || height > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Image too large or cell size not positive");
+		}
+		int rowBytes = 1 + (int) ((width * 2 + 7) / 8);								//filter byte, then pixels
+		int linesPerStrip = (int) Math.max(1, STRIP_BYTES / ((long) rowBytes * cellSize));
+
+		DataOutputStream data = new DataOutputStream(out);
+		data.write(SIGNATURE);
+		byte[] header = new byte[13];
+		putInt(header, 0, (int) width);
+		putInt(header, 4, (int) height);
+		header[8] = 2;																//bit depth
+		header[9] = 3;																//colour type: palette
+		writeChunk(data, "IHDR", header, header.length);
+		byte[] palette = new byte[12];
+		putColor(palette, OPEN, MazePanel.VISITED_COLOR);
+		putColor(palette, WALL, MazePanel.WALL_COLOR);
+		putColor(palette, PATH, MazePanel.PATH_COLOR);
+		putColor(palette, TENTATIVE, blend(MazePanel.TENTATIVE_COLOR, MazePanel.VISITED_COLOR));
+		writeChunk(data, "PLTE", palette, palette.length);
+		writeChunk(data, "IDAT", new byte[] {0x78, 0x01}, 2);						//zlib header
+
+		int window = ForkJoinPool.getCommonPoolParallelism() + 1;
+		ArrayDeque<CompletableFuture<Strip>> inFlight = new ArrayDeque<>();
+		long adler = 1L;
+		for (int first = 0; first < lines || inFlight.size() > 0; first += linesPerStrip) {
+			if (first < lines) {
+				int from = first;
+				int to = Math.min(lines, first + linesPerStrip);
+				inFlight.add(CompletableFuture.supplyAsync(
+						() -> encodeStrip(cells, cellSize, rowBytes, from, to, to == lines)));
+			}
+			if (inFlight.size() == window || first >= lines) {
+				Strip strip = inFlight.remove().join();
+				writeChunk(data, "IDAT", strip.compressed, strip.length);
+				adler = combineAdler(adler, strip.adler, strip.rawLength);
+			}
+		}
+		byte[] trailer = new byte[4];
+		putInt(trailer, 0, (int) adler);
+		writeChunk(data, "IDAT", trailer, 4);
+		writeChunk(data, "IEND", new byte[0], 0);
+		data.flush();
+	}
+
+	/**A strip of the image, deflated on its own.*/
+	private static final class Strip {
+
+		/**The deflated scanlines, in the first length bytes.*/
+		private byte[] compressed = new byte[1 << 16];
+
+		/**The number of bytes of compressed in use.*/
+		private int length;
+
+		/**The Adler-32 checksum of the uncompressed scanlines.*/
+		private long adler;
+
+		/**The number of uncompressed bytes.*/
+		private long rawLength;
+
+		/**Appends the output of the deflater until it needs more input or, if flush is
+		 * not NO_FLUSH, until it has flushed.*/
+		private void drain(Deflater deflater, int flush) {
+			do {
+				if (length == compressed.length) {
+					compressed = Arrays.copyOf(compressed, length * 2);
+				}
+				length += deflater.deflate(compressed, length, compressed.length - length, flush);
+			} while (length == compressed.length || (flush == Deflater.NO_FLUSH && !deflater.needsInput()));
+		}
+
+	}
+
+	/**
+	 * Renders and deflates the scanlines of the given lines of the display.
+	 * @param from the first line
+	 * @param to the line after the last
+	 * @param last true if this strip ends the image, so its deflate stream is finished;
+	 *        otherwise it is flushed to a byte boundary for the next strip to follow on
+	 */
+	private static Strip encodeStrip(CellGraph cells, int cellSize, int rowBytes, int from, int to,
+			boolean last) {
+		int columns = cells.columns();
+		char[] line = new char[columns * 2 + 1];
+		byte[] outer = new byte[rowBytes];											//scanlines outside the markers
+		byte[] inner = new byte[rowBytes];											//scanlines through the markers
+		int markerStart = cellSize / 4;
+		int markerEnd = markerStart + Math.max(1, cellSize / 2);
+		Strip strip = new Strip();
+		Adler32 adler = new Adler32();
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+		try {
+			for (int l = from; l < to; l++) {
+				cells.renderRow(l, line);
+				boolean marked = false;
+				if ((l & 1) == 1) {
+					for (int c = 0, i = (l / 2) * columns; c < columns; c++, i++) {
+						char mark = cells.getPathMark(i);
+						if (mark != 0) {
+							line[c * 2 + 1] = mark;
+							marked = true;
+						}
+					}
+				}
+				Arrays.fill(outer, (byte) 0);
+				Arrays.fill(inner, (byte) 0);
+				for (int n = 0; n < line.length; n++) {
+					int color = colorOf(line[n]);
+					int base = color == PATH || color == TENTATIVE ? OPEN : color;
+					for (int p = 0; p < cellSize; p++) {
+						int x = n * cellSize + p;
+						boolean inMarker = p >= markerStart && p < markerEnd;
+						setPixel(outer, x, base);
+						setPixel(inner, x, inMarker ? color : base);
+					}
+				}
+				for (int y = 0; y < cellSize; y++) {
+					byte[] scanline = marked && y >= markerStart && y < markerEnd ? inner : outer;
+					adler.update(scanline, 0, rowBytes);
+					deflater.setInput(scanline, 0, rowBytes);
+					strip.drain(deflater, Deflater.NO_FLUSH);
+				}
+			}
+			if (last) {
+				deflater.finish();
+				while (!deflater.finished()) {
+					strip.drain(deflater, Deflater.NO_FLUSH);
+				}
+			} else {
+				strip.drain(deflater, Deflater.SYNC_FLUSH);
+			}
+		} finally {
+			deflater.end();
+		}
+		strip.adler = adler.getValue();
+		strip.rawLength = (long) (to - from) * cellSize * rowBytes;
+		return strip;
+	}
+
+	/**Returns the palette index a character of the display is drawn in, as in MazePanel.*/
+	private static int colorOf(char cell) {
+		switch (cell) {
+			case Maze.VISITED : return OPEN;
+			case ' ' : return OPEN;
+			case Maze.PATH : return PATH;
+			case Maze.TENTATIVE : return TENTATIVE;
+			default : return WALL;
+		}
+	}
+
+	/**Sets the 2-bit pixel at x of a scanline, after its filter byte, to the given index.*/
+	private static void setPixel(byte[] scanline, int x, int index) {
+		scanline[1 + (x >>> 2)] |= index << (6 - ((x & 3) << 1));
+	}
+
+	/**Returns the colour of the translucent colour fg drawn over the opaque colour bg.*/
+	private static Color blend(Color fg, Color bg) {
+		int alpha = fg.getAlpha();
+		return new Color((fg.getRed() * alpha + bg.getRed() * (255 - alpha)) / 255,
+				(fg.getGreen() * alpha + bg.getGreen() * (255 - alpha)) / 255,
+				(fg.getBlue() * alpha + bg.getBlue() * (255 - alpha)) / 255);
+	}
+
+	/**Returns the Adler-32 checksum of two runs of bytes one after the other, from their
+	 * own checksums and the length of the second, as zlib's adler32_combine does.*/
+	private static long combineAdler(long adler1, long adler2, long length2) {
+		long remainder = length2 % ADLER_BASE;
+		long sum1 = adler1 & 0xFFFF;
+		long sum2 = (remainder * sum1) % ADLER_BASE;
+		sum1 += (adler2 & 0xFFFF) + ADLER_BASE - 1;
+		sum2 += ((adler1 >>> 16) & 0xFFFF) + ((adler2 >>> 16) & 0xFFFF) + ADLER_BASE - remainder;
+		if (sum1 >= ADLER_BASE) { sum1 -= ADLER_BASE; }
+		if (sum1 >= ADLER_BASE) { sum1 -= ADLER_BASE; }
+		if (sum2 >= (ADLER_BASE << 1)) { sum2 -= ADLER_BASE << 1; }
+		if (sum2 >= ADLER_BASE) { sum2 -= ADLER_BASE; }
+		return sum1 | (sum2 << 16);
+	}
+
+	/**Writes a chunk of the given type holding the first length bytes of data.*/
+	private static void writeChunk(DataOutputStream out, String type, byte[] data, int length)
+			throws IOException {
+		byte[] typeBytes = type.getBytes("US-ASCII");
+		CRC32 crc = new CRC32();
+		crc.update(typeBytes);
+		crc.update(data, 0, length);
+		out.writeInt(length);
+		out.write(typeBytes);
+		out.write(data, 0, length);
+		out.writeInt((int) crc.getValue());
+	}
+
+	/**Stores value big-endian at the given offset.*/
+	private static void putInt(byte[] bytes, int offset, int value) {
+		bytes[offset] = (byte) (value >>> 24);
+		bytes[offset + 1] = (byte) (value >>> 16);
+		bytes[offset + 2] = (byte) (value >>> 8);
+		bytes[offset + 3] = (byte) value;
+	}
+
+	/**Stores the given colour as the given entry of the palette.*/
+	private static void putColor(byte[] palette, int index, Color color) {
+		palette[index * 3] = (byte) color.getRed();
+		palette[index * 3 + 1] = (byte) color.getGreen();
+		palette[index * 3 + 2] = (byte) color.getBlue();
+	}
+
+}